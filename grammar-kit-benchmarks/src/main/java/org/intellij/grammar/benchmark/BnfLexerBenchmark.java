@@ -0,0 +1,45 @@
+package org.intellij.grammar.benchmark;
+
+import consulo.language.ast.IElementType;
+import org.intellij.grammar.parser.BnfLexer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokenizing of whole grammar files with {@link BnfLexer}.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BnfLexerBenchmark {
+    @Param({"100", "1000", "5000"})
+    public int rules;
+
+    private String myText;
+    private BnfLexer myLexer;
+
+    @Setup
+    public void setUp() {
+        myText = SyntheticGrammar.generate(rules);
+        myLexer = new BnfLexer();
+    }
+
+    @Benchmark
+    public int tokenize(Blackhole blackhole) {
+        int count = 0;
+        myLexer.start(myText, 0, myText.length(), 0);
+        for (IElementType type; (type = myLexer.getTokenType()) != null; myLexer.advance()) {
+            blackhole.consume(type);
+            count++;
+        }
+        return count;
+    }
+}
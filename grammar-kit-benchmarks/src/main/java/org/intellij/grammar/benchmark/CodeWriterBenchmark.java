@@ -0,0 +1,49 @@
+package org.intellij.grammar.benchmark;
+
+import org.intellij.grammar.generator.CodeWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Emission of parser-like code through {@link CodeWriter}, one rule method per iteration step.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CodeWriterBenchmark {
+    @Param({"100", "1000", "5000"})
+    public int rules;
+
+    @Benchmark
+    public void emitRules() {
+        try (CodeWriter out = new CodeWriter(Writer.nullWriter())) {
+            out.line("public class BenchParser implements PsiParser {");
+            for (int i = 0; i < rules; i++) {
+                out.line("/* ********************************************************** */");
+                out.line("// 'kw%d' id (LP list RP)? SEMI", i);
+                out.line("public static boolean item_%s(PsiBuilder b, int l) {", i);
+                out.line("if (!recursion_guard_(b, l, \"item_%s\")) return false;", i);
+                out.line("boolean r, p;");
+                out.line("Marker m = enter_section_(b, l, _NONE_, ITEM_%s, \"<item %s>\");", i, i);
+                out.line("r = consumeToken(b, \"kw%d\");", i);
+                out.line("p = r; // pin = 1");
+                out.line("r = r && report_error_(b, consumeToken(b, ID));");
+                out.line("r = p && report_error_(b, item_%s_2(b, l + 1)) && r;", i);
+                out.line("r = p && consumeToken(b, SEMI) && r;");
+                out.line("exit_section_(b, l, m, r, p, BenchParser::item_recover);");
+                out.line("return r || p;");
+                out.line("}");
+                out.line("");
+            }
+            out.line("}");
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.intellij.grammar.benchmark;
+
+import consulo.application.ReadAction;
+import org.intellij.grammar.analysis.BnfFirstNextAnalyzer;
+import org.intellij.grammar.generator.RuleGraphHelper;
+import org.intellij.grammar.psi.BnfFile;
+import org.intellij.grammar.psi.BnfRule;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rule analysis of a whole grammar: {@link RuleGraphHelper} and FIRST/NEXT sets of every rule.
+ * <p>
+ * Results are cached per file, so every invocation gets a freshly parsed file, parsing is not measured.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GrammarAnalysisBenchmark {
+    @Param({"100", "1000", "5000"})
+    public int rules;
+
+    private String myText;
+    private BnfFile myFile;
+    private List<BnfRule> myRules;
+
+    @Setup(Level.Trial)
+    public void setUpText() {
+        myText = SyntheticGrammar.generate(rules);
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpFile() {
+        myFile = GrammarFixture.createFile("Bench.bnf", myText, false);
+        myRules = ReadAction.compute(myFile::getRules);
+    }
+
+    @Benchmark
+    public RuleGraphHelper ruleGraph() {
+        return ReadAction.compute(() -> new RuleGraphHelper(myFile));
+    }
+
+    @Benchmark
+    public void calcFirst(Blackhole blackhole) {
+        ReadAction.run(() -> {
+            BnfFirstNextAnalyzer analyzer = new BnfFirstNextAnalyzer();
+            for (BnfRule rule : myRules) {
+                blackhole.consume(analyzer.calcFirst(rule));
+            }
+        });
+    }
+
+    @Benchmark
+    public void calcNext(Blackhole blackhole) {
+        ReadAction.run(() -> {
+            BnfFirstNextAnalyzer analyzer = new BnfFirstNextAnalyzer();
+            for (BnfRule rule : myRules) {
+                blackhole.consume(analyzer.calcNext(rule));
+            }
+        });
+    }
+}
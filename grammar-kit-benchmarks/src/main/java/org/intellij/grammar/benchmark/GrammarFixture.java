@@ -0,0 +1,36 @@
+package org.intellij.grammar.benchmark;
+
+import consulo.application.ReadAction;
+import consulo.devkit.grammarKit.headless.HeadlessEnvironment;
+import consulo.language.psi.PsiFileFactory;
+import consulo.project.Project;
+import jakarta.annotation.Nonnull;
+import org.intellij.grammar.BnfLanguage;
+import org.intellij.grammar.psi.BnfFile;
+
+/**
+ * Grammar files parsed in the project of the {@link HeadlessEnvironment}, shared by all the benchmarks of a fork.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+public final class GrammarFixture {
+    private GrammarFixture() {
+    }
+
+    @Nonnull
+    public static Project getProject() {
+        return HeadlessEnvironment.getInstance().getProject();
+    }
+
+    /**
+     * @param eventSystemEnabled whether the file is backed by a light virtual file, the live preview binds its language to one
+     */
+    @Nonnull
+    public static BnfFile createFile(@Nonnull String name, @Nonnull String text, boolean eventSystemEnabled) {
+        return ReadAction.compute(
+            () -> (BnfFile)PsiFileFactory.getInstance(getProject())
+                .createFileFromText(name, BnfLanguage.INSTANCE, text, eventSystemEnabled, false)
+        );
+    }
+}
@@ -0,0 +1,104 @@
+package org.intellij.grammar.benchmark;
+
+import consulo.application.ReadAction;
+import consulo.language.ast.ASTNode;
+import consulo.language.ast.IElementType;
+import consulo.language.lexer.Lexer;
+import consulo.language.parser.ParserDefinition;
+import consulo.language.parser.PsiBuilder;
+import consulo.language.parser.PsiBuilderFactory;
+import consulo.language.version.LanguageVersion;
+import consulo.language.version.LanguageVersionUtil;
+import consulo.project.Project;
+import jakarta.annotation.Nonnull;
+import org.intellij.grammar.impl.livePreview.LivePreviewLanguage;
+import org.intellij.grammar.impl.livePreview.LivePreviewLexer;
+import org.intellij.grammar.impl.livePreview.LivePreviewParser;
+import org.intellij.grammar.impl.livePreview.LivePreviewParserDefinition;
+import org.intellij.grammar.psi.BnfFile;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lexing and parsing of the same text with the live preview of {@link SyntheticGrammar} grammars of growing size,
+ * the keyword set of the lexer and the plans of the parser grow with the rules.
+ * <p>
+ * {@link #relexAfterEdit} lexes two texts differing in one item in the middle by turns, with a cache key,
+ * so the lexer reuses the tokens of the previous text outside the edited region as it does while typing in the preview.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LivePreviewBenchmark {
+    private static final int ITEMS = 2000;
+
+    @Param({"100", "1000", "5000"})
+    public int rules;
+
+    private final Object myCacheKey = new Object();
+
+    private Project myProject;
+    // the language keeps the grammar softly
+    private BnfFile myGrammar;
+    private LivePreviewLanguage myLanguage;
+    private ParserDefinition myParserDefinition;
+    private LanguageVersion myLanguageVersion;
+    private String myText;
+    private String myEditedText;
+    private boolean myEdited;
+
+    @Setup
+    public void setUp() {
+        myProject = GrammarFixture.getProject();
+        myGrammar = GrammarFixture.createFile("Preview.bnf", SyntheticGrammar.generate(rules), true);
+        myLanguage = LivePreviewLanguage.newInstance(myGrammar);
+        myParserDefinition = new LivePreviewParserDefinition(myLanguage);
+        myLanguageVersion = LanguageVersionUtil.findDefaultVersion(myLanguage);
+        myText = SyntheticGrammar.generateText(ITEMS);
+        int middle = myText.indexOf("));", myText.length() / 2);
+        myEditedText = myText.substring(0, middle) + " + 1" + myText.substring(middle);
+    }
+
+    @Benchmark
+    public int lex(Blackhole blackhole) {
+        return tokenize(createLexer(null), myText, blackhole);
+    }
+
+    @Benchmark
+    public int relexAfterEdit(Blackhole blackhole) {
+        myEdited = !myEdited;
+        return tokenize(createLexer(myCacheKey), myEdited ? myEditedText : myText, blackhole);
+    }
+
+    @Benchmark
+    public ASTNode parse() {
+        return ReadAction.compute(() -> {
+            PsiBuilder builder = PsiBuilderFactory.getInstance()
+                .createBuilder(myParserDefinition, createLexer(null), myLanguageVersion, myText);
+            return new LivePreviewParser(myProject, myLanguage).parse(myParserDefinition.getFileNodeType(), builder, myLanguageVersion);
+        });
+    }
+
+    @Nonnull
+    private Lexer createLexer(Object cacheKey) {
+        return ReadAction.compute(() -> new LivePreviewLexer(myProject, myLanguage, cacheKey));
+    }
+
+    private static int tokenize(@Nonnull Lexer lexer, @Nonnull String text, @Nonnull Blackhole blackhole) {
+        int count = 0;
+        lexer.start(text, 0, text.length(), 0);
+        for (IElementType type; (type = lexer.getTokenType()) != null; lexer.advance()) {
+            blackhole.consume(type);
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,65 @@
+package org.intellij.grammar.benchmark;
+
+import consulo.application.ReadAction;
+import org.intellij.grammar.generator.ParserGenerator;
+import org.intellij.grammar.java.JavaHelper;
+import org.intellij.grammar.psi.BnfFile;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Generation of the parser and PSI of a whole grammar with {@link ParserGenerator#generate()}.
+ * <p>
+ * The rule analysis is cached on the file and the output is unchanged after the first invocation, so this measures
+ * rendering and comparing with the files on disk, as a repeated generation in the IDE does.
+ * The synthetic grammars refer to no mixin, super or utility classes, so the generator gets a helper which knows no classes
+ * instead of the project service.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserGeneratorBenchmark {
+    private static final JavaHelper NO_CLASSES = new JavaHelper() {
+    };
+
+    @Param({"100", "1000", "5000"})
+    public int rules;
+
+    private BnfFile myFile;
+    private Path myOutputDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        myFile = GrammarFixture.createFile("Bench.bnf", SyntheticGrammar.generate(rules), false);
+        myOutputDir = Files.createTempDirectory("grammar-kit-benchmark");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(myOutputDir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public int generate() throws IOException {
+        return ReadAction.compute(() -> {
+            ParserGenerator generator = new ParserGenerator(myFile, myOutputDir.toString(), myOutputDir.toString(), "", NO_CLASSES);
+            generator.generate();
+            return generator.getWrittenFiles().size() + generator.getSkippedFiles().size();
+        });
+    }
+}
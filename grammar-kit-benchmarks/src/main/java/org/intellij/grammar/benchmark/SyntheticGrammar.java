@@ -0,0 +1,104 @@
+package org.intellij.grammar.benchmark;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * Deterministic grammars of a given size for the benchmarks.
+ * <p>
+ * Rules form a few layered groups, so that a rule references only the next rules,
+ * and use every expression kind: sequences, choices, quantifiers, predicates, meta rules and attributes.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+public final class SyntheticGrammar {
+    private static final int GROUP_SIZE = 10;
+
+    private SyntheticGrammar() {
+    }
+
+    @Nonnull
+    public static String generate(int ruleCount) {
+        StringBuilder sb = new StringBuilder(ruleCount * 96);
+        sb.append("{\n")
+            .append("  parserClass=\"bench.parser.BenchParser\"\n")
+            .append("  elementTypeHolderClass=\"bench.psi.BenchTypes\"\n")
+            .append("  elementTypeClass=\"bench.psi.BenchElementType\"\n")
+            .append("  tokenTypeClass=\"bench.psi.BenchTokenType\"\n")
+            .append("  psiPackage=\"bench.psi\"\n")
+            .append("  psiImplPackage=\"bench.psi.impl\"\n")
+            .append("  tokens=[\n")
+            .append("    space='regexp:\\s+'\n")
+            .append("    comment='regexp://.*'\n")
+            .append("    number='regexp:\\d+'\n")
+            .append("    id='regexp:\\p{Alpha}\\w*'\n")
+            .append("    LP='('\n")
+            .append("    RP=')'\n")
+            .append("    COMMA=','\n")
+            .append("    SEMI=';'\n")
+            .append("  ]\n")
+            .append("  extends(\"expr_.*\")=expr\n")
+            .append("}\n\n");
+        sb.append("root ::= item_0 *\n");
+        sb.append("private meta list ::= <<p>> (COMMA <<p>>) *\n");
+        sb.append("expr ::= expr_add | expr_mul | expr_primary\n");
+        sb.append("expr_add ::= expr '+' expr\n");
+        sb.append("expr_mul ::= expr '*' expr\n");
+        sb.append("expr_primary ::= number | id | LP expr RP\n\n");
+        for (int i = 0; i < ruleCount; i++) {
+            int next = i + 1 < ruleCount ? i + 1 : -1;
+            int skip = i + GROUP_SIZE < ruleCount ? i + GROUP_SIZE : -1;
+            sb.append("// rule ").append(i).append('\n');
+            switch (i % 4) {
+                case 0 -> {
+                    sb.append("item_").append(i).append(" ::= 'kw").append(i).append("' id ");
+                    if (next >= 0) {
+                        sb.append("(LP <<list item_").append(next).append(">> RP)? ");
+                    }
+                    sb.append("SEMI {pin=1 recoverWhile=item_recover}\n");
+                }
+                case 1 -> {
+                    sb.append("item_").append(i).append(" ::= expr ");
+                    if (next >= 0) {
+                        sb.append("| item_").append(next).append(' ');
+                    }
+                    if (skip >= 0) {
+                        sb.append("| &'kw").append(skip).append("' item_").append(skip).append(' ');
+                    }
+                    sb.append("| number id\n");
+                }
+                case 2 -> {
+                    sb.append("private item_").append(i).append(" ::= !SEMI (id | number)+ ");
+                    if (next >= 0) {
+                        sb.append("item_").append(next).append('*');
+                    }
+                    sb.append('\n');
+                }
+                default -> {
+                    sb.append("item_").append(i).append(" ::= 'kw").append(i).append("' ");
+                    sb.append(next >= 0 ? "item_" + next : "expr");
+                    sb.append(" {extends=item_").append(i - i % GROUP_SIZE).append("}\n");
+                }
+            }
+        }
+        sb.append("private item_recover ::= !(SEMI | id)\n");
+        return sb.toString();
+    }
+
+    /**
+     * Text of the {@link #generate generated} grammars of any size: items of the first rule with argument lists
+     * of the second one, nested expressions and comments in between.
+     */
+    @Nonnull
+    public static String generateText(int itemCount) {
+        StringBuilder sb = new StringBuilder(itemCount * 40);
+        for (int i = 0; i < itemCount; i++) {
+            if (i % 8 == 0) {
+                sb.append("// item ").append(i).append('\n');
+            }
+            sb.append("kw0 a").append(i).append(" (").append(i).append(" + b").append(i)
+                .append(", c").append(i).append(" * (").append(i % 10).append(" + 1));\n");
+        }
+        return sb.toString();
+    }
+}
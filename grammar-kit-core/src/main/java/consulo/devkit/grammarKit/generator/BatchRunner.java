@@ -0,0 +1,145 @@
+package consulo.devkit.grammarKit.generator;
+
+import consulo.application.progress.ProgressIndicator;
+import consulo.application.progress.ProgressManager;
+import consulo.component.ProcessCanceledException;
+import consulo.logging.Logger;
+import consulo.util.lang.ExceptionUtil;
+import consulo.util.lang.StringUtil;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Runs independent per-file tasks of a background task concurrently and summarizes their outcome for one notification.
+ * <p>
+ * Pool threads run the tasks under the indicator of the background task, so {@code checkCanceled()} and the read actions
+ * of a task stop when the task is canceled. Tasks are expected to return {@code null} when canceled,
+ * failures of a single file belong to its result so the rest of the batch is still run and reported.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+public class BatchRunner {
+    private static final Logger LOG = Logger.getInstance(BatchRunner.class);
+
+    private BatchRunner() {
+    }
+
+    /**
+     * Runs the task for every input on a pool bounded by the number of processors.
+     */
+    public static <I, R> void run(
+        @Nonnull List<? extends I> inputs,
+        @Nonnull ProgressIndicator indicator,
+        @Nonnull Function<? super I, ? extends R> task,
+        @Nonnull List<? super R> results
+    ) {
+        run(inputs, Runtime.getRuntime().availableProcessors(), indicator, task, results);
+    }
+
+    /**
+     * Runs the task for every input on a pool of at most {@code parallelism} threads, a single input or a parallelism
+     * of one runs on the calling thread. Results are added in the order of {@code inputs}, {@code null} results are dropped.
+     *
+     * @param indicator indicator of the calling task, {@code null} outside of a progress
+     */
+    public static <I, R> void run(
+        @Nonnull List<? extends I> inputs,
+        int parallelism,
+        @Nullable ProgressIndicator indicator,
+        @Nonnull Function<? super I, ? extends R> task,
+        @Nonnull List<? super R> results
+    ) {
+        if (inputs.size() <= 1 || parallelism <= 1) {
+            for (I input : inputs) {
+                R result = task.apply(input);
+                if (result != null) {
+                    results.add(result);
+                }
+            }
+            return;
+        }
+
+        List<Callable<R>> tasks = new ArrayList<>(inputs.size());
+        for (I input : inputs) {
+            tasks.add(indicator == null
+                ? () -> task.apply(input)
+                : () -> ProgressManager.getInstance().runProcess(() -> task.apply(input), indicator));
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.min(tasks.size(), parallelism));
+        try {
+            for (Future<R> future : pool.invokeAll(tasks)) {
+                try {
+                    R result = future.get();
+                    if (result != null) {
+                        results.add(result);
+                    }
+                }
+                catch (ExecutionException e) {
+                    LOG.error(e.getCause());
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessCanceledException(e);
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Notification text of a batch, one line per file followed by a title with the totals.
+     */
+    public static class Report {
+        private final StringBuilder myDetails = new StringBuilder();
+        private int myFailed;
+
+        public void addDone(@Nonnull String name, @Nonnull String summary, long millis) {
+            newLine().append(name).append(": ").append(summary).append(" in ").append(StringUtil.formatDuration(millis));
+        }
+
+        public void addSkipped(@Nonnull String name, @Nonnull String reason) {
+            newLine().append(name).append(" skipped: ").append(reason);
+        }
+
+        public void addFailed(@Nonnull String name, @Nonnull Throwable error) {
+            myFailed++;
+            newLine().append(name).append(" failed: ").append(ExceptionUtil.getMessage(error));
+        }
+
+        public boolean hasFailures() {
+            return myFailed > 0;
+        }
+
+        @Nonnull
+        public String getDetails() {
+            return myDetails.toString();
+        }
+
+        /**
+         * @param summary totals of the batch, the number of failures and the duration are appended
+         */
+        @Nonnull
+        public String getTitle(@Nonnull String summary, long totalMillis) {
+            return summary + (myFailed == 0 ? "" : ", " + myFailed + " failed") + " in " + StringUtil.formatDuration(totalMillis);
+        }
+
+        @Nonnull
+        private StringBuilder newLine() {
+            if (myDetails.length() > 0) {
+                myDetails.append("<br>");
+            }
+            return myDetails;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package org.intellij.grammar.analysis;
+
+import consulo.annotation.access.RequiredReadAction;
+import consulo.application.util.CachedValueProvider;
+import consulo.language.ast.IElementType;
+import consulo.language.psi.PsiElement;
+import consulo.language.psi.util.LanguageCachedValueUtil;
+import consulo.language.psi.util.PsiTreeUtil;
+import jakarta.annotation.Nonnull;
+import org.intellij.grammar.generator.ParserGeneratorUtil;
+import org.intellij.grammar.psi.BnfExpression;
+import org.intellij.grammar.psi.BnfFile;
+import org.intellij.grammar.psi.BnfRule;
+import org.intellij.grammar.psi.impl.GrammarUtil;
+
+import java.util.*;
+
+/**
+ * Hash-consing table of all the expressions in a grammar.
+ * <p>
+ * Expressions considered equal by {@link GrammarUtil#equalsElement} share the same structure id,
+ * so structural comparisons and duplicate searches need no PSI walking once the table is built.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+public class BnfExpressionIndex {
+    private final Map<BnfExpression, Integer> myIds = new HashMap<>();
+    private final Map<StructureKey, Integer> myStructures = new HashMap<>();
+    private final List<List<BnfExpression>> myOccurrences = new ArrayList<>();
+
+    @Nonnull
+    public static BnfExpressionIndex getInstance(@Nonnull BnfFile file) {
+        return LanguageCachedValueUtil.getCachedValue(
+            file,
+            () -> new CachedValueProvider.Result<>(new BnfExpressionIndex(file), file)
+        );
+    }
+
+    @RequiredReadAction
+    private BnfExpressionIndex(@Nonnull BnfFile file) {
+        for (BnfExpression expression : GrammarUtil.bnfTraverser(file).filter(BnfExpression.class)) {
+            getOrCreateId(expression);
+        }
+    }
+
+    /**
+     * @return structure id of the expression or -1 if the expression does not belong to the indexed file
+     */
+    public int getStructureId(@Nonnull BnfExpression expression) {
+        Integer id = myIds.get(expression);
+        return id == null ? -1 : id;
+    }
+
+    @RequiredReadAction
+    public boolean equalsStructure(@Nonnull BnfExpression e1, @Nonnull BnfExpression e2) {
+        int id1 = getStructureId(e1);
+        int id2 = getStructureId(e2);
+        if (id1 == -1 || id2 == -1) {
+            return GrammarUtil.equalsElement(e1, e2);
+        }
+        return id1 == id2;
+    }
+
+    /**
+     * @return all the expressions in the file sharing the structure of the given one, in document order
+     */
+    @Nonnull
+    public List<BnfExpression> getOccurrences(@Nonnull BnfExpression expression) {
+        int id = getStructureId(expression);
+        return id == -1 ? Collections.singletonList(expression) : Collections.unmodifiableList(myOccurrences.get(id));
+    }
+
+    /**
+     * Groups of identical compound expressions found in more than one rule.
+     * A group is skipped when it is covered by a group of the enclosing expressions.
+     */
+    @Nonnull
+    @RequiredReadAction
+    public List<List<BnfExpression>> getDuplicatesAcrossRules() {
+        List<List<BnfExpression>> result = new ArrayList<>();
+        for (List<BnfExpression> group : myOccurrences) {
+            if (group.size() < 2 || GrammarUtil.isOneTokenExpression(group.get(0)) || isCoveredByParents(group)) {
+                continue;
+            }
+            Set<BnfRule> rules = new HashSet<>();
+            for (BnfExpression expression : group) {
+                BnfRule rule = PsiTreeUtil.getParentOfType(expression, BnfRule.class);
+                if (rule != null && !GrammarUtil.isInAttributesReference(expression)) {
+                    rules.add(rule);
+                }
+            }
+            if (rules.size() > 1) {
+                result.add(Collections.unmodifiableList(group));
+            }
+        }
+        return result;
+    }
+
+    private boolean isCoveredByParents(@Nonnull List<BnfExpression> group) {
+        int parentId = -1;
+        for (BnfExpression expression : group) {
+            PsiElement parent = expression.getParent();
+            int id = parent instanceof BnfExpression parentExpression ? getStructureId(parentExpression) : -1;
+            if (id == -1 || parentId != -1 && parentId != id) {
+                return false;
+            }
+            parentId = id;
+        }
+        return true;
+    }
+
+    @RequiredReadAction
+    private int getOrCreateId(@Nonnull BnfExpression expression) {
+        Integer existing = myIds.get(expression);
+        if (existing != null) {
+            return existing;
+        }
+        IElementType type = ParserGeneratorUtil.getEffectiveType(expression);
+        StructureKey key;
+        if (GrammarUtil.isOneTokenExpression(expression)) {
+            key = new StructureKey(type, expression.getText(), StructureKey.NO_CHILDREN);
+        }
+        else {
+            int count = 0;
+            for (PsiElement c = expression.getFirstChild(); c != null; c = c.getNextSibling()) {
+                if (c instanceof BnfExpression) {
+                    count++;
+                }
+            }
+            int[] children = new int[count];
+            int i = 0;
+            for (PsiElement c = expression.getFirstChild(); c != null; c = c.getNextSibling()) {
+                if (c instanceof BnfExpression child) {
+                    children[i++] = getOrCreateId(child);
+                }
+            }
+            key = new StructureKey(type, null, children);
+        }
+        Integer id = myStructures.get(key);
+        if (id == null) {
+            id = myOccurrences.size();
+            myStructures.put(key, id);
+            myOccurrences.add(new ArrayList<>(1));
+        }
+        myIds.put(expression, id);
+        myOccurrences.get(id).add(expression);
+        return id;
+    }
+
+    private static final class StructureKey {
+        static final int[] NO_CHILDREN = new int[0];
+
+        final IElementType type;
+        final String text;
+        final int[] children;
+        final int hash;
+
+        StructureKey(IElementType type, String text, int[] children) {
+            this.type = type;
+            this.text = text;
+            this.children = children;
+            hash = 31 * (31 * Objects.hashCode(type) + Objects.hashCode(text)) + Arrays.hashCode(children);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StructureKey other
+                && hash == other.hash
+                && type == other.type
+                && Objects.equals(text, other.text)
+                && Arrays.equals(children, other.children);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -4,15 +4,18 @@
 
 package org.intellij.grammar.analysis;
 
+import consulo.application.util.CachedValueProvider;
 import consulo.application.util.function.CommonProcessors;
 import consulo.language.ast.IElementType;
 import consulo.language.psi.PsiElement;
+import consulo.language.psi.PsiFile;
 import consulo.language.psi.PsiReference;
-import consulo.language.psi.search.ReferencesSearch;
+import consulo.language.psi.util.LanguageCachedValueUtil;
 import consulo.language.psi.util.PsiTreeUtil;
 import consulo.logging.Logger;
 import consulo.util.collection.ContainerUtil;
 import consulo.util.collection.JBIterable;
+import consulo.util.collection.MultiMap;
 import consulo.util.collection.Sets;
 import consulo.util.lang.Pair;
 import consulo.util.lang.StringUtil;
@@ -28,6 +31,8 @@ import org.intellij.grammar.psi.impl.GrammarUtil.FakeBnfExpression;
 import jakarta.annotation.Nonnull;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import static consulo.util.collection.ContainerUtil.union;
 
@@ -71,22 +76,102 @@ public class BnfFirstNextAnalyzer {
     }
 
     public Set<BnfExpression> calcFirst(@Nonnull BnfRule rule) {
-        Set<BnfExpression> visited = new HashSet<>();
-        BnfExpression expression = rule.getExpression();
-        visited.add(expression);
-        return calcFirstInner(expression, new HashSet<>(), visited);
+        return new HashSet<>(getCachedFirst(rule, () -> {
+            Set<BnfExpression> visited = new HashSet<>();
+            BnfExpression expression = rule.getExpression();
+            visited.add(expression);
+            return calcFirstInner(expression, new HashSet<>(), visited);
+        }));
     }
 
     public Set<BnfExpression> calcFirst(@Nonnull BnfExpression expressions) {
-        return calcFirstInner(expressions, new HashSet<>(), new HashSet<>());
+        return new HashSet<>(getCachedFirst(expressions, () -> calcFirstInner(expressions, new HashSet<>(), new HashSet<>())));
     }
 
     public Map<BnfExpression, BnfExpression> calcNext(@Nonnull BnfRule targetRule) {
-        return calcNextInner(targetRule.getExpression(), new HashMap<>(), new HashSet<>());
+        return new HashMap<>(getCachedNext(targetRule, () -> calcNextInner(targetRule.getExpression(), new HashMap<>(), new HashSet<>())));
     }
 
     public Map<BnfExpression, BnfExpression> calcNext(@Nonnull BnfExpression targetExpression) {
-        return calcNextInner(targetExpression, new HashMap<>(), new HashSet<>());
+        return new HashMap<>(getCachedNext(targetExpression, () -> calcNextInner(targetExpression, new HashMap<>(), new HashSet<>())));
+    }
+
+    /**
+     * Per-file table of FIRST/NEXT results and rule usages, dropped on any change of the file.
+     * Results are stored per analyzer configuration, analyzers with a parent filter are not cached.
+     */
+    private static class FirstNextTable {
+        final Map<Object, Set<BnfExpression>> first = new ConcurrentHashMap<>();
+        final Map<Object, Map<BnfExpression, BnfExpression>> next = new ConcurrentHashMap<>();
+        volatile MultiMap<BnfRule, BnfExpression> usages;
+    }
+
+    @Nonnull
+    private static FirstNextTable getTable(@Nonnull PsiElement element) {
+        PsiFile file = element.getContainingFile();
+        return LanguageCachedValueUtil.getCachedValue(file, () -> new CachedValueProvider.Result<>(new FirstNextTable(), file));
+    }
+
+    @Nullable
+    private Object getCacheKey(@Nonnull PsiElement element) {
+        if (myParentFilter != null || element instanceof FakeBnfExpression || !(element.getContainingFile() instanceof BnfFile)) {
+            return null;
+        }
+        int flags = (myBackward ? 1 : 0) | (myPublicRuleOpaque ? 2 : 0) | (myPredicateLookAhead ? 4 : 0);
+        return Pair.create(element, flags);
+    }
+
+    private Set<BnfExpression> getCachedFirst(@Nonnull PsiElement element, @Nonnull Supplier<Set<BnfExpression>> computable) {
+        Object key = getCacheKey(element);
+        if (key == null) {
+            return computable.get();
+        }
+        Map<Object, Set<BnfExpression>> cache = getTable(element).first;
+        Set<BnfExpression> result = cache.get(key);
+        if (result == null) {
+            result = computable.get();
+            cache.putIfAbsent(key, result);
+        }
+        return result;
+    }
+
+    private Map<BnfExpression, BnfExpression> getCachedNext(
+        @Nonnull PsiElement element,
+        @Nonnull Supplier<Map<BnfExpression, BnfExpression>> computable
+    ) {
+        Object key = getCacheKey(element);
+        if (key == null) {
+            return computable.get();
+        }
+        Map<Object, Map<BnfExpression, BnfExpression>> cache = getTable(element).next;
+        Map<BnfExpression, BnfExpression> result = cache.get(key);
+        if (result == null) {
+            result = computable.get();
+            cache.putIfAbsent(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * All expressions of the file referencing the rule, in file order.
+     * Rules are only visible in their own file, so one pass over the file replaces a reference search per rule.
+     */
+    @Nonnull
+    private static Collection<BnfExpression> getRuleUsages(@Nonnull BnfRule rule) {
+        FirstNextTable table = getTable(rule);
+        MultiMap<BnfRule, BnfExpression> usages = table.usages;
+        if (usages == null) {
+            usages = MultiMap.createLinkedSet();
+            for (BnfExpression e : GrammarUtil.bnfTraverser(rule.getContainingFile()).filter(BnfExpression.class)) {
+                for (PsiReference reference : e.getReferences()) {
+                    if (reference.getElement() == e && reference.resolve() instanceof BnfRule target) {
+                        usages.putValue(target, e);
+                    }
+                }
+            }
+            table.usages = usages;
+        }
+        return usages.get(rule);
     }
 
     private Map<BnfExpression, BnfExpression> calcNextInner(
@@ -141,9 +226,8 @@ public class BnfFirstNextAnalyzer {
                 (myParentFilter == null || myParentFilter.value(parent)) &&
                 totalVisited.add((BnfRule)parent)) {
                 BnfRule rule = (BnfRule)parent;
-                for (PsiReference reference : ReferencesSearch.search(rule, rule.getUseScope()).findAll()) {
-                    PsiElement element = reference.getElement();
-                    if (element instanceof BnfExpression && PsiTreeUtil.getParentOfType(element, BnfPredicate.class) == null) {
+                for (BnfExpression element : getRuleUsages(rule)) {
+                    if (PsiTreeUtil.getParentOfType(element, BnfPredicate.class) == null) {
                         BnfAttr attr = PsiTreeUtil.getParentOfType(element, BnfAttr.class);
                         if (attr != null) {
                             if (KnownAttribute.getCompatibleAttribute(attr.getName()) == KnownAttribute.RECOVER_WHILE) {
@@ -151,7 +235,7 @@ public class BnfFirstNextAnalyzer {
                             }
                         }
                         else {
-                            stack.add((BnfExpression)element);
+                            stack.add(element);
                         }
                     }
                 }
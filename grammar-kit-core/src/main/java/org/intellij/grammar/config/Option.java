@@ -48,6 +48,16 @@ abstract class Option<T> implements Supplier<T> {
         };
     }
 
+    static Option<Boolean> boolOption(String id, boolean def) {
+        return new Option<>(id, def) {
+            @Override
+            public Boolean get() {
+                String value = innerValue();
+                return value == null ? defValue : Boolean.parseBoolean(value);
+            }
+        };
+    }
+
     static Option<String> strOption(String id, String def) {
         return new Option<>(id, def) {
             @Override
@@ -24,6 +24,12 @@ import java.util.function.Supplier;
 public interface Options {
     Supplier<String> GEN_DIR = Option.strOption("grammar.kit.gen.dir", "gen");
     Supplier<String> GEN_JFLEX_ARGS = Option.strOption("grammar.kit.gen.jflex.args", "");
+    Supplier<Boolean> GEN_SKIP_UNCHANGED = Option.boolOption("grammar.kit.gen.skip.unchanged", true);
+    Supplier<Boolean> GEN_PROFILE = Option.boolOption("grammar.kit.gen.profile", false);
+
+    Supplier<Boolean> INCREMENTAL_ANALYSIS = Option.boolOption("grammar.kit.incremental.analysis", true);
+
+    Supplier<Boolean> LIVE_PREVIEW_COMPILE = Option.boolOption("grammar.kit.live.preview.compile", false);
 
     Supplier<Integer> GPUB_MAX_LEVEL = Option.intOption("grammar.kit.gpub.max.level", 1000);
 }
@@ -0,0 +1,202 @@
+package org.intellij.grammar.generator;
+
+import jakarta.annotation.Nonnull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Buffered writer for generated Java code that tracks the brace-driven indentation of the emitted lines.
+ * <p>
+ * Lines are copied to an internal char buffer range by range, indentation prefixes are cached
+ * and the common {@code %s} / {@code %d} patterns are substituted without {@link java.util.Formatter}.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+public class CodeWriter implements AutoCloseable {
+    private static final String INDENT = "  ";
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final String[] ourIndents = new String[32];
+
+    private final Writer myWriter;
+    private final char[] myBuffer = new char[8192];
+    private final StringBuilder myFormatBuffer = new StringBuilder();
+    private int myLength;
+    private int myOffset;
+
+    public CodeWriter(@Nonnull Writer writer) {
+        myWriter = writer;
+    }
+
+    public void resetIndent() {
+        myOffset = 0;
+    }
+
+    /**
+     * Writes {@code format} with {@code %s}, {@code %d}, {@code %n} and {@code %%} substituted,
+     * other patterns are handled by {@link String#format}.
+     */
+    public void line(@Nonnull String format, @Nonnull Object... args) {
+        if (args.length == 0 && format.indexOf('%') < 0) {
+            line(format);
+            return;
+        }
+        StringBuilder sb = myFormatBuffer;
+        sb.setLength(0);
+        int argIndex = 0;
+        for (int i = 0, length = format.length(); i < length; i++) {
+            char c = format.charAt(i);
+            if (c != '%') {
+                sb.append(c);
+                continue;
+            }
+            char next = i + 1 < length ? format.charAt(i + 1) : 0;
+            if ((next == 's' || next == 'd') && argIndex < args.length) {
+                sb.append(args[argIndex++]);
+            }
+            else if (next == '%') {
+                sb.append('%');
+            }
+            else if (next == 'n') {
+                sb.append(LINE_SEPARATOR);
+            }
+            else {
+                line(String.format(format, args));
+                return;
+            }
+            i++;
+        }
+        line(sb);
+    }
+
+    /**
+     * Writes one or more {@code \n} separated lines. Lines ending with an opening brace or parenthesis
+     * indent the following ones, lines starting with a closing one are unindented.
+     */
+    public void line(@Nonnull CharSequence s) {
+        int length = s.length();
+        if (length == 0) {
+            append(LINE_SEPARATOR, 0, LINE_SEPARATOR.length());
+            return;
+        }
+        boolean newStatement = true;
+        for (int start = 0, end; start < length; start = end + 1) {
+            boolean isComment = startsWith(s, start, length, "//");
+            end = indexOf(s, '\n', start, length);
+            char first = start < end ? s.charAt(start) : 0;
+            char last = start < end ? s.charAt(end - 1) : 0;
+            if (!isComment && (first == '}' || first == ')')) {
+                myOffset--;
+                newStatement = true;
+            }
+            if (myOffset > 0) {
+                String indent = getIndent(newStatement ? myOffset : myOffset + 1);
+                append(indent, 0, indent.length());
+            }
+            append(s, start, end);
+            append(LINE_SEPARATOR, 0, LINE_SEPARATOR.length());
+            if (isComment) {
+                newStatement = true;
+            }
+            else if (last == '{') {
+                myOffset++;
+                newStatement = true;
+            }
+            else if (last == '(') {
+                myOffset++;
+                newStatement = false;
+            }
+            else {
+                newStatement = last == ';' || last == '}';
+            }
+        }
+    }
+
+    public void flush() {
+        try {
+            myWriter.write(myBuffer, 0, myLength);
+            myLength = 0;
+            myWriter.flush();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+        try {
+            myWriter.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void append(@Nonnull CharSequence s, int start, int end) {
+        while (start < end) {
+            if (myLength == myBuffer.length) {
+                try {
+                    myWriter.write(myBuffer, 0, myLength);
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                myLength = 0;
+            }
+            int count = Math.min(end - start, myBuffer.length - myLength);
+            if (s instanceof String str) {
+                str.getChars(start, start + count, myBuffer, myLength);
+            }
+            else if (s instanceof StringBuilder sb) {
+                sb.getChars(start, start + count, myBuffer, myLength);
+            }
+            else {
+                for (int i = 0; i < count; i++) {
+                    myBuffer[myLength + i] = s.charAt(start + i);
+                }
+            }
+            myLength += count;
+            start += count;
+        }
+    }
+
+    @Nonnull
+    private static String getIndent(int level) {
+        if (level >= ourIndents.length) {
+            return INDENT.repeat(level);
+        }
+        String indent = ourIndents[level];
+        if (indent == null) {
+            char[] chars = new char[level * INDENT.length()];
+            Arrays.fill(chars, ' ');
+            ourIndents[level] = indent = new String(chars);
+        }
+        return indent;
+    }
+
+    private static boolean startsWith(@Nonnull CharSequence s, int start, int end, @Nonnull String prefix) {
+        if (end - start < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (s.charAt(start + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(@Nonnull CharSequence s, char c, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return end;
+    }
+}
@@ -21,6 +21,8 @@ public class GenOptions {
     public final int generateFirstCheck;
     public final boolean generateTokenTypes;
     public final boolean generateTokenSets;
+    // FIRST set lookup instead of the nextTokenIsFast token list at the entry of consumeTokenFast rules
+    public final boolean generateFirstSets;
     public final boolean generateElementTypes;
     public final String generateExactTypes;
     public final boolean generateExtendedPin;
@@ -45,6 +47,7 @@ public class GenOptions {
         generatePsiClassesMap = "yes".equals(genOptions.get("psi-classes-map"));
         generateTokenTypes = getGenerateOption(version, bnfFile, KnownAttribute.GENERATE_TOKENS, genOptions, "tokens");
         generateTokenSets = generateTokenTypes && "yes".equals(genOptions.get("token-sets"));
+        generateFirstSets = generateTokenSets && "yes".equals(genOptions.get("first-sets"));
         generateElementTypes = !"no".equals(genOptions.get("elements"));
         generateExactTypes = StringUtil.notNullize(genOptions.get("exact-types"));
         generateFirstCheck =
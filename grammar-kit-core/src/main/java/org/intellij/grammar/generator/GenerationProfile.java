@@ -0,0 +1,153 @@
+package org.intellij.grammar.generator;
+
+import jakarta.annotation.Nonnull;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wall-clock timings of the generation phases and of the code emitted per rule, plus generation counters.
+ * A profile belongs to a single generator, it is filled and read on the thread the generator runs on.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+public class GenerationProfile {
+    private static final int TOP_RULES = 10;
+
+    private final String myGrammarName;
+    private final long myStart = System.nanoTime();
+    private final Map<String, Long> myPhases = new LinkedHashMap<>();
+    private final Map<String, Long> myRules = new HashMap<>();
+    private final Map<String, Long> myCounters = new LinkedHashMap<>();
+
+    public GenerationProfile(@Nonnull String grammarName) {
+        myGrammarName = grammarName;
+    }
+
+    /**
+     * Starts a phase, the returned handle adds the elapsed time to the phase when closed.
+     * A phase entered several times accumulates its time.
+     */
+    @Nonnull
+    public Phase phase(@Nonnull String name) {
+        long start = System.nanoTime();
+        return () -> addPhase(name, System.nanoTime() - start);
+    }
+
+    public void addPhase(@Nonnull String name, long nanos) {
+        myPhases.merge(name, nanos, Long::sum);
+    }
+
+    public void addRule(@Nonnull String ruleName, long nanos) {
+        myRules.merge(ruleName, nanos, Long::sum);
+    }
+
+    public void count(@Nonnull String counter, long delta) {
+        myCounters.merge(counter, delta, Long::sum);
+    }
+
+    public void setCounter(@Nonnull String counter, long value) {
+        myCounters.put(counter, value);
+    }
+
+    public long getTotalMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - myStart);
+    }
+
+    @Nonnull
+    public Map<String, Long> getPhaseMillis() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        myPhases.forEach((name, nanos) -> result.put(name, TimeUnit.NANOSECONDS.toMillis(nanos)));
+        return result;
+    }
+
+    @Nonnull
+    public Map<String, Long> getCounters() {
+        return new LinkedHashMap<>(myCounters);
+    }
+
+    /**
+     * One line per phase and counter plus the slowest rules, for the generator log.
+     */
+    @Nonnull
+    public String toReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(myGrammarName).append(" generated in ").append(getTotalMillis()).append(" ms");
+        myPhases.forEach((name, nanos) -> sb.append("\n  ").append(name).append(": ").append(TimeUnit.NANOSECONDS.toMillis(nanos)).append(" ms"));
+        myCounters.forEach((name, value) -> sb.append("\n  ").append(name).append(": ").append(value));
+        List<Map.Entry<String, Long>> rules = getSlowestRules(TOP_RULES);
+        if (!rules.isEmpty()) {
+            sb.append("\n  slowest rules:");
+            for (Map.Entry<String, Long> entry : rules) {
+                sb.append(' ').append(entry.getKey()).append(" (").append(TimeUnit.NANOSECONDS.toMicros(entry.getValue())).append(" us)");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Machine-readable form of the whole profile, rules are sorted by time descending.
+     */
+    @Nonnull
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"grammar\": ").append(quote(myGrammarName));
+        sb.append(",\n  \"totalMillis\": ").append(getTotalMillis());
+        sb.append(",\n  \"phases\": {");
+        appendEntries(sb, myPhases, true);
+        sb.append("},\n  \"counters\": {");
+        appendEntries(sb, myCounters, false);
+        sb.append("},\n  \"rules\": [");
+        List<Map.Entry<String, Long>> rules = getSlowestRules(myRules.size());
+        for (int i = 0; i < rules.size(); i++) {
+            Map.Entry<String, Long> entry = rules.get(i);
+            sb.append(i == 0 ? "\n    " : ",\n    ")
+                .append("{\"name\": ").append(quote(entry.getKey()))
+                .append(", \"micros\": ").append(TimeUnit.NANOSECONDS.toMicros(entry.getValue())).append('}');
+        }
+        sb.append(rules.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+        return sb.toString();
+    }
+
+    @Nonnull
+    private List<Map.Entry<String, Long>> getSlowestRules(int count) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(myRules.entrySet());
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        return entries.subList(0, Math.min(count, entries.size()));
+    }
+
+    private static void appendEntries(@Nonnull StringBuilder sb, @Nonnull Map<String, Long> map, boolean nanosToMillis) {
+        int i = 0;
+        for (Map.Entry<String, Long> entry : map.entrySet()) {
+            long value = nanosToMillis ? TimeUnit.NANOSECONDS.toMillis(entry.getValue()) : entry.getValue();
+            sb.append(i++ == 0 ? "\n    " : ",\n    ").append(quote(entry.getKey())).append(": ").append(value);
+        }
+        if (i > 0) {
+            sb.append("\n  ");
+        }
+    }
+
+    @Nonnull
+    private static String quote(@Nonnull String s) {
+        StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            }
+            else if (c < ' ') {
+                sb.append(String.format("\\u%04x", (int)c));
+            }
+            else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    public interface Phase extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,331 @@
+package org.intellij.grammar.generator;
+
+import consulo.annotation.access.RequiredReadAction;
+import consulo.application.ReadAction;
+import consulo.devkit.grammarKit.generator.BatchRunner;
+import consulo.devkit.grammarKit.generator.GenerateTarget;
+import consulo.language.psi.PsiFile;
+import consulo.language.psi.PsiFileFactory;
+import consulo.logging.Logger;
+import consulo.project.Project;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.intellij.grammar.BnfLanguage;
+import org.intellij.grammar.KnownAttribute;
+import org.intellij.grammar.config.Options;
+import org.intellij.grammar.java.JavaHelper;
+import org.intellij.grammar.psi.BnfAttr;
+import org.intellij.grammar.psi.BnfFile;
+import org.intellij.grammar.psi.impl.GrammarUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Generates parsers for {@code .bnf} files on disk without editors, documents or the VFS,
+ * e.g. from the {@code grammar-kit-headless} Maven goal running with the project of a headless application.
+ * <p>
+ * Every grammar is parsed into a non-physical {@link BnfFile} and passed to {@link ParserGenerator}, classes referenced
+ * by the grammar are resolved with the given {@link JavaHelper}, as the project has no Java PSI.
+ * A grammar is skipped when the hash of its inputs matches the stamp stored on the previous run and all the files
+ * generated back then still exist. The inputs are the grammar text, the output directory, the generator settings and build,
+ * the class header files, the Java sources of the parser util, PSI impl util, mixin, super and stub classes found
+ * in the source roots and the class path the helper reads.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+public class HeadlessParserGenerator {
+    private static final Logger LOG = Logger.getInstance(HeadlessParserGenerator.class);
+
+    private static final String STAMP_VERSION = "3";
+
+    /**
+     * Attributes naming classes whose sources the generated code depends on.
+     */
+    private static final Set<String> CLASS_ATTRIBUTES = Set.of(
+        KnownAttribute.PARSER_UTIL_CLASS.getName(),
+        KnownAttribute.PSI_IMPL_UTIL_CLASS.getName(),
+        KnownAttribute.MIXIN.getName(),
+        KnownAttribute.EXTENDS.getName(),
+        KnownAttribute.STUB_CLASS.getName()
+    );
+
+    private static volatile String ourGeneratorVersion;
+
+    private final Project myProject;
+    private final Path myOutputDir;
+    private final Path myStampDir;
+    private final List<Path> mySourceRoots;
+    private final List<Path> myClassPath;
+    private final JavaHelper myJavaHelper;
+    private final Set<GenerateTarget> myTargets;
+    private final int myParallelism;
+
+    private String myClassPathStamp;
+
+    /**
+     * @param stampDir    directory for the input hashes, must not be under {@code outputDir}, e.g. the build directory
+     * @param sourceRoots roots searched for the Java sources of classes referenced by the grammars
+     * @param classPath   jars and class directories {@code javaHelper} reads the referenced classes from
+     */
+    public HeadlessParserGenerator(
+        @Nonnull Project project,
+        @Nonnull Path outputDir,
+        @Nonnull Path stampDir,
+        @Nonnull List<Path> sourceRoots,
+        @Nonnull List<Path> classPath,
+        @Nonnull JavaHelper javaHelper,
+        @Nonnull Set<GenerateTarget> targets,
+        int parallelism
+    ) {
+        myProject = project;
+        myOutputDir = outputDir;
+        myStampDir = stampDir;
+        mySourceRoots = List.copyOf(sourceRoots);
+        myClassPath = List.copyOf(classPath);
+        myJavaHelper = javaHelper;
+        myTargets = EnumSet.copyOf(targets);
+        myParallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * @return {@link Options#GEN_DIR} resolved against the base directory of a module
+     */
+    @Nonnull
+    public static Path getDefaultOutputDir(@Nonnull Path baseDir) {
+        return baseDir.resolve(Options.GEN_DIR.get());
+    }
+
+    /**
+     * Generates independent grammars concurrently, the results are returned in the order of {@code grammars}.
+     */
+    @Nonnull
+    public List<Result> generate(@Nonnull List<Path> grammars) {
+        List<Result> results = new ArrayList<>(grammars.size());
+        BatchRunner.run(grammars, myParallelism, null, this::generate, results);
+        return results;
+    }
+
+    /**
+     * Generates a single grammar, failures are reported in the result instead of being thrown.
+     */
+    @Nonnull
+    public Result generate(@Nonnull Path grammar) {
+        long time = System.currentTimeMillis();
+        try {
+            String text = Files.readString(grammar, StandardCharsets.UTF_8);
+            String sourcePath = grammar.toAbsolutePath().getParent().toString();
+            BnfFile bnfFile = ReadAction.compute(() -> {
+                PsiFile file = PsiFileFactory.getInstance(myProject)
+                    .createFileFromText(grammar.getFileName().toString(), BnfLanguage.INSTANCE, text, false, false);
+                if (!(file instanceof BnfFile result)) {
+                    throw new IOException(grammar + " is not a grammar file");
+                }
+                return result;
+            });
+            List<Path> dependencies = ReadAction.compute(() -> collectDependencies(bnfFile, sourcePath));
+            String hash = calcInputHash(text, dependencies);
+            Path stamp = getStampFile(grammar);
+            List<File> upToDate = readStamp(stamp, hash);
+            if (upToDate != null) {
+                return new Result(grammar, upToDate, 0, true, System.currentTimeMillis() - time, null);
+            }
+
+            ParserGenerator generator = ReadAction.compute(() -> {
+                ParserGenerator g = new ParserGenerator(bnfFile, sourcePath, myOutputDir.toString(), "", myJavaHelper);
+                g.generate(myTargets);
+                return g;
+            });
+            List<File> files = new ArrayList<>(generator.getWrittenFiles());
+            files.addAll(generator.getSkippedFiles());
+            writeStamp(stamp, hash, files);
+            return new Result(grammar, files, generator.getWrittenFiles().size(), false, System.currentTimeMillis() - time, null);
+        }
+        catch (IOException | RuntimeException e) {
+            LOG.warn(grammar + " generation failed", e);
+            return new Result(grammar, Collections.emptyList(), 0, false, System.currentTimeMillis() - time, e);
+        }
+    }
+
+    /**
+     * @return class header files and the sources of referenced classes, missing sources are included to notice them appear
+     */
+    @Nonnull
+    @RequiredReadAction
+    private List<Path> collectDependencies(@Nonnull BnfFile file, @Nonnull String sourcePath) {
+        Set<Path> result = new TreeSet<>();
+        for (BnfAttr attr : GrammarUtil.bnfTraverser(file).filter(BnfAttr.class)) {
+            String name = attr.getName();
+            boolean header = KnownAttribute.CLASS_HEADER.getName().equals(name);
+            if (!header && !CLASS_ATTRIBUTES.contains(name)
+                || !(ParserGeneratorUtil.getAttributeValue(attr.getExpression()) instanceof String value)
+                || value.isEmpty()) {
+                continue;
+            }
+            if (header) {
+                Path headerFile = Path.of(sourcePath).resolve(value);
+                if (Files.isRegularFile(headerFile)) {
+                    result.add(headerFile);
+                }
+                continue;
+            }
+            int typeArguments = value.indexOf('<');
+            String className = (typeArguments < 0 ? value : value.substring(0, typeArguments)).trim();
+            String relativePath = className.replace('.', '/') + ".java";
+            for (Path root : mySourceRoots) {
+                result.add(root.resolve(relativePath));
+            }
+        }
+        return new ArrayList<>(result);
+    }
+
+    @Nonnull
+    private String calcInputHash(@Nonnull String text, @Nonnull List<Path> dependencies) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        update(digest, STAMP_VERSION);
+        update(digest, getGeneratorVersion());
+        update(digest, myTargets.toString());
+        update(digest, String.valueOf(Options.GEN_SKIP_UNCHANGED.get()));
+        // files generated for another output directory do not count
+        update(digest, myOutputDir.toAbsolutePath().normalize().toString());
+        update(digest, getClassPathStamp());
+        update(digest, text);
+        for (Path dependency : dependencies) {
+            update(digest, dependency.toString());
+            if (Files.isRegularFile(dependency)) {
+                digest.update(Files.readAllBytes(dependency));
+            }
+            else {
+                update(digest, "<missing>");
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * @return paths, sizes and modification times of the class path entries, the latest one of the files for directories
+     */
+    @Nonnull
+    private synchronized String getClassPathStamp() throws IOException {
+        if (myClassPathStamp != null) {
+            return myClassPathStamp;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (Path entry : myClassPath) {
+            sb.append(entry.toAbsolutePath().normalize()).append(':');
+            if (Files.isDirectory(entry)) {
+                try (Stream<Path> files = Files.walk(entry)) {
+                    long lastModified = 0;
+                    for (Path file : (Iterable<Path>)files::iterator) {
+                        lastModified = Math.max(lastModified, Files.getLastModifiedTime(file).toMillis());
+                    }
+                    sb.append(lastModified);
+                }
+            }
+            else if (Files.isRegularFile(entry)) {
+                sb.append(Files.size(entry)).append(':').append(Files.getLastModifiedTime(entry).toMillis());
+            }
+            sb.append('\n');
+        }
+        return myClassPathStamp = sb.toString();
+    }
+
+    private static void update(@Nonnull MessageDigest digest, @Nonnull String text) {
+        digest.update(text.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte)0);
+    }
+
+    /**
+     * @return the version of the generator build, snapshot builds are told apart by the size and time of their jar
+     */
+    @Nonnull
+    private static String getGeneratorVersion() {
+        String version = ourGeneratorVersion;
+        if (version != null) {
+            return version;
+        }
+        StringBuilder sb = new StringBuilder(String.valueOf(ParserGenerator.class.getPackage().getImplementationVersion()));
+        CodeSource codeSource = ParserGenerator.class.getProtectionDomain().getCodeSource();
+        if (codeSource != null && codeSource.getLocation() != null) {
+            try {
+                File location = new File(codeSource.getLocation().toURI());
+                if (location.isFile()) {
+                    sb.append(':').append(location.length()).append(':').append(location.lastModified());
+                }
+            }
+            catch (URISyntaxException | IllegalArgumentException ignored) {
+            }
+        }
+        return ourGeneratorVersion = sb.toString();
+    }
+
+    @Nonnull
+    private Path getStampFile(@Nonnull Path grammar) {
+        Path path = grammar.toAbsolutePath().normalize();
+        return myStampDir.resolve(path.getFileName() + "." + Integer.toHexString(path.toString().hashCode()) + ".stamp");
+    }
+
+    /**
+     * @return files generated on the previous run if the stamp matches and they all exist
+     */
+    @Nullable
+    private static List<File> readStamp(@Nonnull Path stamp, @Nonnull String hash) throws IOException {
+        if (!Files.isRegularFile(stamp)) {
+            return null;
+        }
+        List<String> lines = Files.readAllLines(stamp, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !hash.equals(lines.get(0))) {
+            return null;
+        }
+        List<File> files = new ArrayList<>(lines.size() - 1);
+        for (String line : lines.subList(1, lines.size())) {
+            File file = new File(line);
+            if (!file.isFile()) {
+                return null;
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    private static void writeStamp(@Nonnull Path stamp, @Nonnull String hash, @Nonnull List<File> files) throws IOException {
+        List<String> lines = new ArrayList<>(files.size() + 1);
+        lines.add(hash);
+        for (File file : files) {
+            lines.add(file.getAbsolutePath());
+        }
+        Files.createDirectories(stamp.getParent());
+        Files.write(stamp, lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param files    all the files produced for the grammar, written or left untouched
+     * @param written  number of files actually written
+     * @param upToDate whether generation was skipped because the input hash did not change
+     */
+    public record Result(
+        @Nonnull Path grammar,
+        @Nonnull List<File> files,
+        int written,
+        boolean upToDate,
+        long millis,
+        @Nullable Exception error
+    ) {
+    }
+}
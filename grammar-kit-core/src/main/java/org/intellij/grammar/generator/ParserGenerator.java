@@ -5,6 +5,7 @@
 package org.intellij.grammar.generator;
 
 import consulo.annotation.access.RequiredReadAction;
+import consulo.application.progress.ProgressManager;
 import consulo.devkit.grammarKit.generator.GenerateTarget;
 import consulo.devkit.grammarKit.generator.PlatformClass;
 import consulo.language.ast.IElementType;
@@ -14,16 +15,21 @@ import consulo.language.psi.PsiElement;
 import consulo.logging.Logger;
 import consulo.util.collection.*;
 import consulo.util.lang.*;
+import consulo.virtualFileSystem.VirtualFile;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import org.intellij.grammar.KnownAttribute;
 import org.intellij.grammar.analysis.BnfFirstNextAnalyzer;
+import org.intellij.grammar.config.Options;
 import org.intellij.grammar.generator.NodeCalls.*;
+import org.intellij.grammar.java.CachingJavaHelper;
 import org.intellij.grammar.java.JavaHelper;
 import org.intellij.grammar.psi.*;
 import org.intellij.grammar.psi.impl.GrammarUtil;
 
 import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.*;
 import java.util.function.Function;
@@ -119,8 +125,10 @@ public class ParserGenerator {
     private final Map<String, String> myMetaMethodFields = new HashMap<>();
 
     private final Map<String, Collection<String>> myTokenSets = new TreeMap<>();
+    private final Map<String, String> myFirstSetRules = new HashMap<>();      // FIRST set constant -> rule name
     private final Map<String, String> mySimpleTokens;
     private final Set<String> myTokensUsedInGrammar = new LinkedHashSet<>();
+    private final Set<String> myReferencedTokenTypes = new LinkedHashSet<>();
     private final boolean myNoStubs;
 
     private final BnfFile myFile;
@@ -128,6 +136,7 @@ public class ParserGenerator {
     private final String mySourcePath;
     private final String myOutputPath;
     private final String myPackagePrefix;
+    private final Charset myCharset;
     private final String myGrammarRoot;
     private final String myGrammarRootParser;
     private final String myParserUtilClass;
@@ -140,14 +149,20 @@ public class ParserGenerator {
     private final String myVisitorClassName;
     private final String myTypeHolderClass;
 
-    private int myOffset;
-    private PrintWriter myOut;
+    private final boolean mySkipUnchanged = Options.GEN_SKIP_UNCHANGED.get();
+    private final List<File> myWrittenFiles = new ArrayList<>();
+    private final List<File> mySkippedFiles = new ArrayList<>();
+
+    private final GenerationProfile myProfile;
+    private CodeWriter myOut;
+    private File myOutFile;
+    private StringWriter myOutBuffer;
     private NameShortener myShortener;
 
     private final RuleGraphHelper myGraphHelper;
     private final ExpressionHelper myExpressionHelper;
     private final RuleMethodsHelper myRulesMethodsHelper;
-    private final JavaHelper myJavaHelper;
+    private final CachingJavaHelper myJavaHelper;
 
     final Names N;
     final GenOptions G;
@@ -159,10 +174,28 @@ public class ParserGenerator {
         @Nonnull String outputPath,
         @Nonnull String packagePrefix
     ) {
+        this(psiFile, sourcePath, outputPath, packagePrefix, JavaHelper.getJavaHelper(psiFile));
+    }
+
+    /**
+     * @param javaHelper resolves the classes referenced by the grammar, for projects without the {@link JavaHelper} service
+     */
+    @RequiredReadAction
+    public ParserGenerator(
+        @Nonnull BnfFile psiFile,
+        @Nonnull String sourcePath,
+        @Nonnull String outputPath,
+        @Nonnull String packagePrefix,
+        @Nonnull JavaHelper javaHelper
+    ) {
+        myProfile = new GenerationProfile(psiFile.getName());
         myFile = psiFile;
         mySourcePath = sourcePath;
         myOutputPath = outputPath;
         myPackagePrefix = packagePrefix;
+        // non-physical grammars, e.g. parsed by HeadlessParserGenerator, have no file to take the encoding from
+        VirtualFile virtualFile = psiFile.getVirtualFile();
+        myCharset = virtualFile != null ? virtualFile.getCharset() : StandardCharsets.UTF_8;
 
         G = new GenOptions(myFile);
         N = G.names;
@@ -183,10 +216,14 @@ public class ParserGenerator {
         myTypeHolderClass = getRootAttribute(myVersion, myFile, KnownAttribute.ELEMENT_TYPE_HOLDER_CLASS);
 
         mySimpleTokens = new LinkedHashMap<>(RuleGraphHelper.getTokenTextToNameMap(myFile));
-        myGraphHelper = RuleGraphHelper.getCached(myFile);
-        myExpressionHelper = new ExpressionHelper(myFile, myGraphHelper, true);
+        try (GenerationProfile.Phase ignored = myProfile.phase("RuleGraphHelper")) {
+            myGraphHelper = RuleGraphHelper.getCached(myFile);
+        }
+        try (GenerationProfile.Phase ignored = myProfile.phase("ExpressionHelper")) {
+            myExpressionHelper = new ExpressionHelper(myFile, myGraphHelper, true);
+        }
         myRulesMethodsHelper = new RuleMethodsHelper(myGraphHelper, myExpressionHelper, mySimpleTokens, G);
-        myJavaHelper = JavaHelper.getJavaHelper(myFile);
+        myJavaHelper = new CachingJavaHelper(javaHelper);
 
         List<BnfRule> rules = psiFile.getRules();
         BnfRule rootRule = rules.isEmpty() ? null : rules.get(0);
@@ -321,81 +358,143 @@ public class ParserGenerator {
             info.realSuperClass = StringUtil.notNullize(info.mixin, adjustedSuperRuleClass);
             info.mixedAST = topInfo != null ? topInfo.mixedAST : JBIterable.of(superRuleClass, info.realSuperClass)
                 .map(NameShortener::getRawClassName)
-                .flatMap(s -> JBTreeTraverser.<String>from(o -> JBIterable.of(myJavaHelper.getSuperClassName(o))).withRoot(s).unique())
+                .flatMap(s -> JBIterable.from(myJavaHelper.getSuperChain(s)))
                 .find(s -> s.equals(PlatformClass.COMPOSITE_PSI_ELEMENT.select(myVersion))) != null;
         }
     }
 
     private void openOutput(String className) throws IOException {
+        File file = getOutputFile(className);
+        if (mySkipUnchanged) {
+            // render into memory first, the file is written in closeOutput() only if its content has changed
+            openBufferedOutput(file);
+        }
+        else {
+            myOut = new CodeWriter(openOutputInner(file));
+            myWrittenFiles.add(file);
+        }
+    }
+
+    private File getOutputFile(String className) {
         String classNameAdjusted = myPackagePrefix.isEmpty() ? className : StringUtil.trimStart(className, myPackagePrefix + ".");
-        File file = new File(myOutputPath, classNameAdjusted.replace('.', File.separatorChar) + ".java");
-        myOut = openOutputInner(file);
+        return new File(myOutputPath, classNameAdjusted.replace('.', File.separatorChar) + ".java");
+    }
+
+    private void openBufferedOutput(File file) {
+        myOutFile = file;
+        myOutBuffer = new StringWriter();
+        myOut = new CodeWriter(myOutBuffer);
     }
 
     private void openDummyOutput() {
-        myOut = new PrintWriter(new StringWriter());
+        myOut = new CodeWriter(Writer.nullWriter());
     }
 
     protected PrintWriter openOutputInner(File file) throws IOException {
         //noinspection ResultOfMethodCallIgnored
         file.getParentFile().mkdirs();
-        return new PrintWriter(new FileOutputStream(file), false, myFile.getVirtualFile().getCharset());
+        return new PrintWriter(new FileOutputStream(file), false, myCharset);
     }
 
-    private void closeOutput() {
-        myOut.close();
+    private void closeOutput() throws IOException {
+        File file = myOutFile;
+        String text = closeBufferedOutput();
+        if (text != null) {
+            writeOutput(file, text);
+        }
     }
 
-    public void out(String s, Object... args) {
-        out(format(s, args));
+    @Nullable
+    private String closeBufferedOutput() {
+        myOut.close();
+        StringWriter buffer = myOutBuffer;
+        myOut = null;
+        myOutFile = null;
+        myOutBuffer = null;
+        return buffer == null ? null : buffer.toString();
     }
 
-    public void out(String s) {
-        int length = s.length();
-        if (length == 0) {
-            myOut.println();
+    private void writeOutput(@Nonnull File file, @Nonnull String text) throws IOException {
+        if (mySkipUnchanged && isUpToDate(file, text)) {
+            mySkippedFiles.add(file);
             return;
         }
-        boolean newStatement = true;
-        for (int start = 0, end; start < length; start = end + 1) {
-            boolean isComment = s.startsWith("//", start);
-            end = StringUtil.indexOf(s, '\n', start, length);
-            if (end == -1) {
-                end = length;
-            }
-            String substring = s.substring(start, end);
-            if (!isComment && (substring.startsWith("}") || substring.startsWith(")"))) {
-                myOffset--;
-                newStatement = true;
-            }
-            if (myOffset > 0) {
-                myOut.print(StringUtil.repeat("  ", newStatement ? myOffset : myOffset + 1));
-            }
-            myOut.println(substring);
-            if (isComment) {
-                newStatement = true;
-            }
-            else if (substring.endsWith("{")) {
-                myOffset++;
-                newStatement = true;
-            }
-            else if (substring.endsWith("(")) {
-                myOffset++;
-                newStatement = false;
-            }
-            else {
-                newStatement = substring.endsWith(";") || substring.endsWith("}");
-            }
+        try (PrintWriter out = openOutputInner(file)) {
+            out.print(text);
+        }
+        myWrittenFiles.add(file);
+    }
+
+    private boolean isUpToDate(@Nonnull File file, @Nonnull String text) {
+        if (!file.isFile()) {
+            return false;
         }
+        byte[] expected = text.getBytes(myCharset);
+        if (file.length() != expected.length) {
+            return false;
+        }
+        try {
+            return Arrays.equals(Files.readAllBytes(file.toPath()), expected);
+        }
+        catch (IOException e) {
+            LOG.warn(e);
+            return false;
+        }
+    }
+
+    /**
+     * @return files written by the last {@link #generate(Set)} call
+     */
+    @Nonnull
+    public List<File> getWrittenFiles() {
+        return Collections.unmodifiableList(myWrittenFiles);
+    }
+
+    /**
+     * @return files which were rendered by the last {@link #generate(Set)} call
+     * but left untouched because their content did not change
+     */
+    @Nonnull
+    public List<File> getSkippedFiles() {
+        return Collections.unmodifiableList(mySkippedFiles);
+    }
+
+    /**
+     * Timings and counters of the generation, the JSON form is also written
+     * to {@code .grammar-kit/<grammar>.profile.json} in the output directory when {@link Options#GEN_PROFILE} is on.
+     */
+    @Nonnull
+    public GenerationProfile getProfile() {
+        return myProfile;
+    }
+
+    /**
+     * Token element type constants referenced by the classes generated so far
+     */
+    @Nonnull
+    public Set<String> getReferencedTokenTypes() {
+        return new LinkedHashSet<>(myReferencedTokenTypes);
+    }
+
+    public void out(String s, Object... args) {
+        myOut.line(s, args);
+    }
+
+    public void out(String s) {
+        myOut.line(s);
     }
 
     public void newLine() {
         out("");
     }
 
+    private NameShortener getShortener() {
+        return myShortener;
+    }
+
     @Nonnull
     public String shorten(@Nonnull PlatformClass platformClass) {
-        return myShortener.shorten(platformClass.select(myVersion));
+        return getShortener().shorten(platformClass.select(myVersion));
     }
 
     @Nonnull
@@ -405,7 +504,7 @@ public class ParserGenerator {
 
     @Nonnull
     public String shorten(@Nonnull String s) {
-        return myShortener.shorten(s);
+        return getShortener().shorten(s);
     }
 
     @Deprecated
@@ -416,7 +515,29 @@ public class ParserGenerator {
 
     @RequiredReadAction
     public void generate(Set<GenerateTarget> targets) throws IOException {
-        generateParser(targets);
+        myWrittenFiles.clear();
+        mySkippedFiles.clear();
+        try {
+            generateInner(targets);
+        }
+        finally {
+            myProfile.setCounter("rules", myFile.getRules().size());
+            myProfile.setCounter("token sets", myTokenSets.size());
+            myProfile.setCounter("files written", myWrittenFiles.size());
+            myProfile.setCounter("files unchanged", mySkippedFiles.size());
+        }
+        if (Options.GEN_PROFILE.get()) {
+            File dir = new File(myOutputPath, ".grammar-kit");
+            Files.createDirectories(dir.toPath());
+            Files.writeString(new File(dir, myFile.getName() + ".profile.json").toPath(), myProfile.toJson());
+        }
+    }
+
+    @RequiredReadAction
+    private void generateInner(Set<GenerateTarget> targets) throws IOException {
+        try (GenerationProfile.Phase ignored = myProfile.phase("parser")) {
+            generateParser(targets);
+        }
 
         Map<String, BnfRule> sortedCompositeTypes = new TreeMap<>();
         Map<String, BnfRule> sortedPsiRules = new TreeMap<>();
@@ -441,12 +562,14 @@ public class ParserGenerator {
         }
 
         if (G.generatePsi) {
-            calcRealSuperClasses(sortedPsiRules);
+            try (GenerationProfile.Phase ignored = myProfile.phase("calcRealSuperClasses")) {
+                calcRealSuperClasses(sortedPsiRules);
+            }
         }
 
         if (targets.contains(GenerateTarget.API) && myGrammarRoot != null && (G.generateTokenTypes || G.generateElementTypes)) {
             openOutput(myTypeHolderClass);
-            try {
+            try (GenerationProfile.Phase ignored = myProfile.phase("element types")) {
                 generateElementTypesHolder(myTypeHolderClass, sortedCompositeTypes);
             }
             finally {
@@ -463,7 +586,7 @@ public class ParserGenerator {
                 String fileQName = psiImplAttr + "." + holderClassName + "Factory";
 
                 openOutput(fileQName);
-                try {
+                try (GenerationProfile.Phase ignored = myProfile.phase("element types")) {
                     generateElementTypesHolderFactory(fileQName, sortedCompositeTypes, G.generatePsiClassesMap, G.generatePsiFactory);
                 }
                 finally {
@@ -473,39 +596,27 @@ public class ParserGenerator {
         }
 
         if (G.generatePsi) {
-            checkClassAvailability(myFile, myPsiImplUtilClass, "PSI method signatures will not be detected");
-            myRulesMethodsHelper.buildMaps(sortedPsiRules.values());
+            checkClassAvailability(myFile, myJavaHelper, myPsiImplUtilClass, "PSI method signatures will not be detected");
+            try (GenerationProfile.Phase ignored = myProfile.phase("RuleMethodsHelper.buildMaps")) {
+                myRulesMethodsHelper.buildMaps(sortedPsiRules.values());
+            }
 
             if (targets.contains(GenerateTarget.API)) {
-                for (BnfRule rule : sortedPsiRules.values()) {
-                    RuleInfo info = ruleInfo(rule);
-                    openOutput(info.intfClass);
-                    try {
-                        generatePsiIntf(rule, info);
-                    }
-                    finally {
-                        closeOutput();
-                    }
+                try (GenerationProfile.Phase ignored = myProfile.phase("PSI interfaces")) {
+                    generatePsiClasses(sortedPsiRules.values(), info -> info.intfClass, this::generatePsiIntf);
                 }
             }
 
             if (targets.contains(GenerateTarget.Impl)) {
-                for (BnfRule rule : sortedPsiRules.values()) {
-                    RuleInfo info = ruleInfo(rule);
-                    openOutput(info.implClass);
-                    try {
-                        generatePsiImpl(rule, info);
-                    }
-                    finally {
-                        closeOutput();
-                    }
+                try (GenerationProfile.Phase ignored = myProfile.phase("PSI implementations")) {
+                    generatePsiClasses(sortedPsiRules.values(), info -> info.implClass, this::generatePsiImpl);
                 }
             }
 
             if (targets.contains(GenerateTarget.API)) {
                 if (myVisitorClassName != null && myGrammarRoot != null) {
                     openOutput(myVisitorClassName);
-                    try {
+                    try (GenerationProfile.Phase ignored = myProfile.phase("visitor")) {
                         generateVisitor(myVisitorClassName, sortedPsiRules);
                     }
                     finally {
@@ -516,6 +627,37 @@ public class ParserGenerator {
         }
     }
 
+    private interface PsiClassRenderer {
+        @RequiredReadAction
+        void render(BnfRule rule, RuleInfo info);
+    }
+
+    /**
+     * Renders one PSI class per rule in rule order. The classes are rendered on the calling thread under its read action,
+     * rendering them on pool threads would need a read action per worker while the caller holds one, and a pending
+     * write action blocks such nested read actions.
+     */
+    @RequiredReadAction
+    private void generatePsiClasses(
+        @Nonnull Collection<BnfRule> rules,
+        @Nonnull Function<RuleInfo, String> classNameFun,
+        @Nonnull PsiClassRenderer renderer
+    ) throws IOException {
+        for (BnfRule rule : rules) {
+            ProgressManager.checkCanceled();
+            RuleInfo info = ruleInfo(rule);
+            openOutput(classNameFun.apply(info));
+            long start = System.nanoTime();
+            try {
+                renderer.render(rule, info);
+            }
+            finally {
+                myProfile.addRule(rule.getName(), System.nanoTime() - start);
+                closeOutput();
+            }
+        }
+    }
+
     private void generateVisitor(String psiClass, Map<String, BnfRule> sortedRules) {
         String superIntf = ObjectUtil.notNull(
             ContainerUtil.getFirstItem(getRootAttribute(myVersion, myFile, KnownAttribute.IMPLEMENTS)),
@@ -682,6 +824,7 @@ public class ParserGenerator {
             generateRootParserContent();
         }
         for (String ruleName : ownRuleNames) {
+            ProgressManager.checkCanceled();
             BnfRule rule = Objects.requireNonNull(myFile.getRule(ruleName));
             if (Rule.isExternal(rule) || Rule.isFake(rule)) {
                 continue;
@@ -690,7 +833,9 @@ public class ParserGenerator {
                 continue;
             }
             out("/* ********************************************************** */");
+            long start = System.nanoTime();
             generateNode(rule, rule.getExpression(), getFuncName(rule), new HashSet<>());
+            myProfile.addRule(ruleName, System.nanoTime() - start);
             newLine();
         }
         for (String ruleName : ownRuleNames) {
@@ -698,7 +843,9 @@ public class ParserGenerator {
             ExpressionHelper.ExpressionInfo info = myExpressionHelper.getExpressionInfo(rule);
             if (info != null && info.rootRule == rule) {
                 out("/* ********************************************************** */");
+                long start = System.nanoTime();
                 ExpressionGeneratorHelper.generateExpressionRoot(info, this);
+                myProfile.addRule(ruleName, System.nanoTime() - start);
                 newLine();
             }
         }
@@ -721,6 +868,7 @@ public class ParserGenerator {
             }
             out("static final Parser " + name + " = " + call + ";");
             myRenderedLambdas.put(name, parserClass);
+            myProfile.count("lambdas", 1);
         });
     }
 
@@ -734,7 +882,10 @@ public class ParserGenerator {
     }
 
     private void generateMetaMethodFields() {
-        take(myMetaMethodFields).forEach((field, call) -> out("private static final Parser " + field + " = " + call + ";"));
+        take(myMetaMethodFields).forEach((field, call) -> {
+            out("private static final Parser " + field + " = " + call + ";");
+            myProfile.count("meta method fields", 1);
+        });
     }
 
     @RequiredReadAction
@@ -946,7 +1097,7 @@ public class ParserGenerator {
         if (StringUtil.isNotEmpty(text)) {
             out(text);
         }
-        myOffset = 0;
+        myOut.resetIndent();
     }
 
     private String getStringOrFile(String classHeader) {
@@ -1320,6 +1471,14 @@ public class ParserGenerator {
                 ConsumeType consumeType = entry.getKey();
                 List<String> tokenTypes = entry.getValue();
                 StringBuilder sb = new StringBuilder("!");
+                if (G.generateFirstSets && consumeType == ConsumeType.FAST && tokenTypes.size() > 1) {
+                    // nextTokenIsFast records no expected tokens, so one set lookup replaces it on both hit and miss.
+                    // Other checks keep nextTokenIs, their variants and completion are decided per call at runtime
+                    String tokenSetName = getFirstSetConstantName(rule);
+                    myTokenSets.put(tokenSetName, new TreeSet<>(tokenTypes));
+                    return sb.append("nextTokenIsFast(").append(N.builder).append(", ")
+                        .append(TOKEN_SET_HOLDER_NAME).append(".").append(tokenSetName).append(")");
+                }
                 sb.append("nextTokenIs").append(consumeType.getMethodSuffix()).append("(").append(N.builder).append(", ");
                 if (!dropFrameName && consumeType == ConsumeType.DEFAULT) {
                     sb.append(StringUtil.notNullize(frameName, "\"\"")).append(", ");
@@ -1334,6 +1493,22 @@ public class ParserGenerator {
         return dropFrameName && StringUtil.isEmpty(getAttribute(myVersion, rule, KnownAttribute.NAME)) ? null : frameName;
     }
 
+    /**
+     * Rule names differing only in case or underscores map to the same constant name, later rules get a numeric suffix.
+     */
+    @Nonnull
+    private String getFirstSetConstantName(@Nonnull BnfRule rule) {
+        String baseName = ParserGeneratorUtil.getFirstSetConstantName(rule.getName());
+        String name = baseName;
+        for (int i = 2; ; i++) {
+            String owner = myFirstSetRules.putIfAbsent(name, rule.getName());
+            if (owner == null || owner.equals(rule.getName())) {
+                return name;
+            }
+            name = baseName + "_" + i;
+        }
+    }
+
     @Nonnull
     private ConsumeType getRuleConsumeType(@Nonnull BnfRule rule, @Nullable BnfRule contextRule) {
         ConsumeType forcedConsumeType = ExpressionGeneratorHelper.fixForcedConsumeType(myExpressionHelper, rule, null, null);
@@ -1756,7 +1931,9 @@ public class ParserGenerator {
     }
 
     private String getElementType(String token) {
-        return ParserGeneratorUtil.getTokenType(myFile, token, G.generateTokenCase);
+        String elementType = ParserGeneratorUtil.getTokenType(myFile, token, G.generateTokenCase);
+        myReferencedTokenTypes.add(elementType);
+        return elementType;
     }
 
     String getElementType(BnfRule r) {
@@ -2157,8 +2334,8 @@ public class ParserGenerator {
             for (NavigatablePsiElement m : constructors) {
                 List<String> types = myJavaHelper.getMethodTypes(myVersion, m);
                 Function<Integer, List<String>> annoProvider = i -> myJavaHelper.getParameterAnnotations(m, (i - 1) / 2);
-                out("public " + shortName + "(" + getParametersString(this, types, 1, 3, substitutor, annoProvider, myShortener) + ") {");
-                out("super(" + getParametersString(this, types, 1, 2, substitutor, annoProvider, myShortener) + ");");
+                out("public " + shortName + "(" + getParametersString(this, types, 1, 3, substitutor, annoProvider, getShortener()) + ") {");
+                out("super(" + getParametersString(this, types, 1, 2, substitutor, annoProvider, getShortener()) + ");");
                 out("}");
                 newLine();
             }
@@ -2624,16 +2801,16 @@ public class ParserGenerator {
         out(
             "%s%s%s %s(%s)%s%s",
             intf ? "" : "public ",
-            getGenericClauseString(genericParameters, myShortener),
+            getGenericClauseString(genericParameters, getShortener()),
             returnType,
             methodName,
-            getParametersString(this, methodTypes, offset, 3, genericUnwrapper, annoProvider, myShortener),
-            getThrowsString(exceptionList, myShortener),
+            getParametersString(this, methodTypes, offset, 3, genericUnwrapper, annoProvider, getShortener()),
+            getThrowsString(exceptionList, getShortener()),
             intf ? ";" : " {"
         );
         if (!intf) {
             String implUtilRef = shorten(StringUtil.notNullize(myPsiImplUtilClass, KnownAttribute.PSI_IMPL_UTIL_CLASS.getName()));
-            String string = getParametersString(this, methodTypes, offset, 2, genericUnwrapper, annoProvider, myShortener);
+            String string = getParametersString(this, methodTypes, offset, 2, genericUnwrapper, annoProvider, getShortener());
             out("%s%s.%s(this%s);", "void".equals(returnType) ? "" : "return ", implUtilRef, methodName,
                 string.isEmpty() ? "" : ", " + string
             );
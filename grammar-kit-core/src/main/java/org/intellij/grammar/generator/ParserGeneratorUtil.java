@@ -5,6 +5,7 @@ package org.intellij.grammar.generator;
 
 import consulo.annotation.access.RequiredReadAction;
 import consulo.application.Application;
+import consulo.application.util.CachedValueProvider;
 import consulo.application.util.matcher.NameUtil;
 import consulo.devkit.grammarKit.generator.ErrorReporter;
 import consulo.devkit.grammarKit.generator.PlatformClass;
@@ -12,8 +13,7 @@ import consulo.language.ast.IElementType;
 import consulo.language.impl.psi.LeafPsiElement;
 import consulo.language.psi.NavigatablePsiElement;
 import consulo.language.psi.PsiElement;
-import consulo.language.psi.PsiReference;
-import consulo.language.psi.search.ReferencesSearch;
+import consulo.language.psi.util.LanguageCachedValueUtil;
 import consulo.language.psi.util.PsiTreeUtil;
 import consulo.project.Project;
 import consulo.util.collection.*;
@@ -349,6 +349,11 @@ public class ParserGeneratorUtil {
         return toIdentifier(nextName, null, Case.UPPER) + "_TOKENS";
     }
 
+    @Nonnull
+    static String getFirstSetConstantName(@Nonnull String ruleName) {
+        return toIdentifier(ruleName, null, Case.UPPER) + "_FIRST";
+    }
+
     @RequiredReadAction
     public static boolean isRollbackRequired(@Nullable String version, BnfExpression o, BnfFile file) {
         if (o instanceof BnfStringLiteralExpression) {
@@ -707,11 +712,19 @@ public class ParserGeneratorUtil {
     }
 
     public static void checkClassAvailability(@Nonnull BnfFile file, @Nullable String className, @Nullable String description) {
+        checkClassAvailability(file, JavaHelper.getJavaHelper(file), className, description);
+    }
+
+    public static void checkClassAvailability(
+        @Nonnull BnfFile file,
+        @Nonnull JavaHelper javaHelper,
+        @Nullable String className,
+        @Nullable String description
+    ) {
         if (StringUtil.isEmpty(className)) {
             return;
         }
 
-        JavaHelper javaHelper = JavaHelper.getJavaHelper(file);
         if (javaHelper.findClass(className) == null) {
             String tail = StringUtil.isEmpty(description) ? "" : " (" + description + ")";
             addWarning(file.getProject(), className + " class not found" + tail);
@@ -901,20 +914,30 @@ public class ParserGeneratorUtil {
 
     @RequiredReadAction
     static boolean isUsedAsArgument(@Nonnull BnfRule rule) {
-        return !ReferencesSearch.search(rule, rule.getUseScope()).forEach(ref -> !isUsedAsArgument(ref));
+        return rule.getContainingFile() instanceof BnfFile file && getRulesUsedAsArguments(file).contains(rule);
+    }
+
+    /**
+     * Rules referenced as {@code <<rule>>} within arguments of external expressions, computed once per file state.
+     */
+    @Nonnull
+    public static Set<BnfRule> getRulesUsedAsArguments(@Nonnull BnfFile file) {
+        return LanguageCachedValueUtil.getCachedValue(
+            file,
+            () -> new CachedValueProvider.Result<>(collectRulesUsedAsArguments(file), file)
+        );
     }
 
+    @Nonnull
     @RequiredReadAction
-    private static boolean isUsedAsArgument(@Nonnull PsiReference ref) {
-        PsiElement element = ref.getElement();
-        if (!(element instanceof BnfExpression)) {
-            return false;
-        }
-        PsiElement parent = element.getParent();
-        if (!(parent instanceof BnfExternalExpression externalExpression && externalExpression.getRefElement() == element)) {
-            return false;
+    private static Set<BnfRule> collectRulesUsedAsArguments(@Nonnull BnfFile file) {
+        Set<BnfRule> result = new HashSet<>();
+        for (BnfExternalExpression o : GrammarUtil.bnfTraverser(file).filter(BnfExternalExpression.class)) {
+            if (isArgument(o) && o.getRefElement() instanceof BnfReferenceOrToken ref) {
+                ContainerUtil.addIfNotNull(result, ref.resolveRule());
+            }
         }
-        return isArgument((BnfExpression)parent);
+        return result;
     }
 
     static boolean isArgument(@Nonnull BnfExpression expr) {
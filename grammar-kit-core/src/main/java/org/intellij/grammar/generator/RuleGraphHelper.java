@@ -16,6 +16,7 @@ import consulo.language.psi.PsiUtilCore;
 import consulo.language.psi.SyntaxTraverser;
 import consulo.language.psi.util.LanguageCachedValueUtil;
 import consulo.language.psi.util.PsiTreeUtil;
+import consulo.util.collection.ContainerUtil;
 import consulo.util.collection.HashingStrategy;
 import consulo.util.collection.Maps;
 import consulo.util.collection.MultiMap;
@@ -23,6 +24,7 @@ import consulo.util.dataholder.Key;
 import consulo.util.lang.ObjectUtil;
 import org.intellij.grammar.KnownAttribute;
 import org.intellij.grammar.analysis.BnfFirstNextAnalyzer;
+import org.intellij.grammar.config.Options;
 import org.intellij.grammar.psi.*;
 import org.intellij.grammar.psi.impl.GrammarUtil;
 import org.intellij.grammar.psi.impl.GrammarUtil.FakeBnfExpression;
@@ -64,11 +66,17 @@ public class RuleGraphHelper {
     private final String myVersion;
     private final MultiMap<BnfRule, BnfRule> myRuleExtendsMap;
     private final MultiMap<BnfRule, BnfRule> myRulesGraph = newMultiMap();
+    private final MultiMap<BnfRule, BnfRule> myRuleReferences = newMultiMap();
     private final Map<BnfRule, Map<PsiElement, Cardinality>> myRuleContentsMap = new HashMap<>();
     private final MultiMap<BnfRule, PsiElement> myRulesCollapseMap = newMultiMap();
     private final Set<BnfRule> myRulesWithTokens = new HashSet<>();
     private final Map<String, PsiElement> myExternalElements = new HashMap<>();
 
+    // incremental analysis state, see getCached(BnfFile)
+    private final List<String> myStructure;
+    private final Map<BnfRule, String> myExpressionTexts = new HashMap<>();
+    private final MultiMap<BnfRule, PsiElement> myInitialCollapseMap = newMultiMap();
+
     private static final IElementType EXTERNAL_TYPE = new FakeElementType("EXTERNAL_TYPE", Language.ANY);
     private static final IElementType MARKER_TYPE = new FakeElementType("MARKER_TYPE", Language.ANY);
     private static final PsiElement LEFT_MARKER = new FakeBnfExpression(MARKER_TYPE, "LEFT_MARKER");
@@ -230,28 +238,137 @@ public class RuleGraphHelper {
     }
 
     private static final Key<CachedValue<RuleGraphHelper>> RULE_GRAPH_HELPER_KEY = Key.create("RULE_GRAPH_HELPER_KEY");
+    private static final Key<RuleGraphHelper> PREVIOUS_RULE_GRAPH_HELPER_KEY = Key.create("PREVIOUS_RULE_GRAPH_HELPER_KEY");
 
+    /**
+     * Returns the helper for the current file state. Unless {@link Options#INCREMENTAL_ANALYSIS} is switched off,
+     * the contents maps of rules which did not change since the previous computation, together with everything they
+     * depend on, are reused instead of being recalculated.
+     */
     public static RuleGraphHelper getCached(final BnfFile file) {
         CachedValue<RuleGraphHelper> value = file.getUserData(RULE_GRAPH_HELPER_KEY);
         if (value == null) {
             file.putUserData(RULE_GRAPH_HELPER_KEY, value = CachedValuesManager.getManager(file.getProject()).createCachedValue(
-                () -> new CachedValueProvider.Result<>(new RuleGraphHelper(file), file), false));
+                () -> new CachedValueProvider.Result<>(compute(file), file), false));
         }
         return value.getValue();
     }
 
+    private static RuleGraphHelper compute(BnfFile file) {
+        RuleGraphHelper previous = Options.INCREMENTAL_ANALYSIS.get() ? file.getUserData(PREVIOUS_RULE_GRAPH_HELPER_KEY) : null;
+        RuleGraphHelper helper = new RuleGraphHelper(file, buildExtendsMap(file), previous);
+        file.putUserData(PREVIOUS_RULE_GRAPH_HELPER_KEY, helper);
+        return helper;
+    }
+
     public RuleGraphHelper(BnfFile file) {
         this(file, buildExtendsMap(file));
     }
 
     public RuleGraphHelper(BnfFile file, MultiMap<BnfRule, BnfRule> ruleExtendsMap) {
+        this(file, ruleExtendsMap, null);
+    }
+
+    private RuleGraphHelper(BnfFile file, MultiMap<BnfRule, BnfRule> ruleExtendsMap, @Nullable RuleGraphHelper previous) {
         myFile = file;
         myVersion = file.getVersion();
         myRuleExtendsMap = ruleExtendsMap;
+        myStructure = collectStructure(file);
+        if (previous != null) {
+            // reused contents maps refer to these, keep them identical
+            myExternalElements.putAll(previous.myExternalElements);
+        }
+        for (BnfRule rule : file.getRules()) {
+            BnfExpression expression = rule.getExpression();
+            myExpressionTexts.put(rule, expression == null ? "" : expression.getText());
+        }
 
         buildRulesGraph();
         buildCollapseMap();
-        buildContentsMap();
+        for (BnfRule rule : myRulesCollapseMap.keySet()) {
+            myInitialCollapseMap.putValues(rule, myRulesCollapseMap.get(rule));
+        }
+        buildContentsMap(previous == null ? Collections.emptySet() : collectReusableRules(previous), previous);
+    }
+
+    /**
+     * Everything except rule expressions: top-level attributes, rule modifiers, names and attributes, in file order.
+     * Attribute values are resolved by position and patterns, so any change here invalidates all rules.
+     * Texts are kept as is, a hash collision must not let stale contents maps through.
+     */
+    private static List<String> collectStructure(BnfFile file) {
+        List<String> result = new ArrayList<>();
+        for (PsiElement child = file.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof BnfAttrs) {
+                result.add(child.getText());
+            }
+            else if (child instanceof BnfRule rule) {
+                BnfAttrs attrs = rule.getAttrs();
+                result.add(rule.getName());
+                result.add(String.valueOf(rule.getModifierList().size()));
+                for (BnfModifier modifier : rule.getModifierList()) {
+                    result.add(modifier.getText());
+                }
+                result.add(attrs == null ? "" : attrs.getText());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rules whose contents maps can be taken from the previous computation: the rule PSI and expression text are
+     * the same, and so are the collapse candidates. Any rule that changed invalidates all rules that reach it
+     * in the rules graph, i.e. its strongly connected component and its dependents.
+     */
+    private Set<BnfRule> collectReusableRules(@Nonnull RuleGraphHelper previous) {
+        if (previous.myFile != myFile || !previous.myStructure.equals(myStructure)) {
+            return Collections.emptySet();
+        }
+        List<BnfRule> rules = myFile.getRules();
+        Set<BnfRule> dirty = new LinkedHashSet<>();
+        for (BnfRule rule : rules) {
+            if (!isUnchanged(rule, previous)) {
+                dirty.add(rule);
+            }
+        }
+        if (!dirty.isEmpty()) {
+            // left rules depend on what precedes them in every other rule
+            for (BnfRule rule : rules) {
+                if (Rule.isLeft(rule)) {
+                    dirty.add(rule);
+                }
+            }
+        }
+        MultiMap<BnfRule, BnfRule> callers = newMultiMap();
+        for (RuleGraphHelper helper : Arrays.asList(previous, this)) {
+            for (Map.Entry<BnfRule, Collection<BnfRule>> e : helper.myRulesGraph.entrySet()) {
+                for (BnfRule callee : e.getValue()) {
+                    callers.putValue(callee, e.getKey());
+                }
+            }
+        }
+        Deque<BnfRule> queue = new ArrayDeque<>(dirty);
+        while (!queue.isEmpty()) {
+            for (BnfRule caller : callers.get(queue.poll())) {
+                if (dirty.add(caller)) {
+                    queue.add(caller);
+                }
+            }
+        }
+        Set<BnfRule> result = new HashSet<>(rules);
+        result.removeAll(dirty);
+        return result;
+    }
+
+    private boolean isUnchanged(@Nonnull BnfRule rule, @Nonnull RuleGraphHelper previous) {
+        if (!rule.isValid() || !myExpressionTexts.get(rule).equals(previous.myExpressionTexts.get(rule))) {
+            return false;
+        }
+        Map<PsiElement, Cardinality> contents = previous.myRuleContentsMap.get(rule);
+        if (contents == null || !ContainerUtil.and(contents.keySet(), o -> o instanceof FakeBnfExpression || o.isValid())) {
+            return false;
+        }
+        return new HashSet<>(myInitialCollapseMap.get(rule)).equals(new HashSet<>(previous.myInitialCollapseMap.get(rule)));
     }
 
     public MultiMap<BnfRule, BnfRule> getRuleExtendsMap() {
@@ -297,10 +414,16 @@ public class RuleGraphHelper {
         }
     }
 
-    private void buildContentsMap() {
+    private void buildContentsMap(@Nonnull Set<BnfRule> reusable, @Nullable RuleGraphHelper previous) {
         List<BnfRule> rules = topoSort(myFile.getRules(), this);
         Set<Object> visited = new LinkedHashSet<>();
         for (BnfRule rule : rules) {
+            if (previous != null && reusable.contains(rule)) {
+                // callees are processed first and are reusable as well, so the result would be the same
+                myRuleContentsMap.put(rule, previous.myRuleContentsMap.get(rule));
+                myRulesCollapseMap.putValues(rule, previous.myRulesCollapseMap.get(rule));
+                continue;
+            }
             collectMembers(rule, visited);
             visited.clear();
         }
@@ -354,10 +477,20 @@ public class RuleGraphHelper {
                 BnfRule r = ruleRef != null ? ruleRef.resolveRule() : null;
                 if (r != null) {
                     myRulesGraph.putValue(rule, r);
+                    myRuleReferences.putValue(rule, r);
                 }
                 else if (e instanceof BnfReferenceOrToken || e instanceof BnfStringLiteralExpression) {
                     myRulesWithTokens.add(rule);
                 }
+                if (e instanceof BnfPredicate || e instanceof BnfExternalExpression) {
+                    // predicates and meta arguments are not part of the graph but still call the rules
+                    for (BnfReferenceOrToken o : SyntaxTraverser.psiTraverser(e).filter(BnfReferenceOrToken.class)) {
+                        BnfRule target = o.resolveRule();
+                        if (target != null) {
+                            myRuleReferences.putValue(rule, target);
+                        }
+                    }
+                }
             }
         }
         for (BnfRule rule : myFile.getRules()) {
@@ -381,6 +514,14 @@ public class RuleGraphHelper {
         return myRulesGraph.get(rule);
     }
 
+    /**
+     * Rules called from the rule expression including predicates and meta rule arguments,
+     * unlike {@link #getSubRules(BnfRule)} there are no implicit edges of left rules.
+     */
+    public Collection<BnfRule> getReferencedRules(BnfRule rule) {
+        return myRuleReferences.get(rule);
+    }
+
     @Nonnull
     public Map<PsiElement, Cardinality> getFor(BnfRule rule) {
         Map<PsiElement, Cardinality> map = myRuleContentsMap.get(rule); // null for duplicate
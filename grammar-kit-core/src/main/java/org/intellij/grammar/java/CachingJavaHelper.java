@@ -0,0 +1,173 @@
+package org.intellij.grammar.java;
+
+import consulo.language.psi.NavigatablePsiElement;
+import consulo.language.psi.PsiReferenceProvider;
+import consulo.navigation.NavigationItem;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.*;
+
+/**
+ * Memoizing view of a {@link JavaHelper} for a single generation run.
+ * <p>
+ * The generator asks for the same mixin, super and util classes for every rule, here each of them is resolved once.
+ * Results are not invalidated, so an instance must not outlive the run it was created for.
+ * Each generator creates its own instance and uses it from a single thread, so the caches are plain maps.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+public class CachingJavaHelper extends JavaHelper {
+    private static final Object NULL = new Object();
+
+    private final JavaHelper myDelegate;
+    private final Map<String, Object> myClasses = new HashMap<>();
+    private final Map<String, Object> mySuperClasses = new HashMap<>();
+    private final Map<String, List<String>> mySuperChains = new HashMap<>();
+    private final Map<MethodsKey, List<NavigatablePsiElement>> myClassMethods = new HashMap<>();
+    private final Map<MethodKey, List<String>> myMethodTypes = new HashMap<>();
+    private final Map<NavigatablePsiElement, List<String>> myAnnotations = new HashMap<>();
+    private final Map<MethodKey, List<String>> myParameterAnnotations = new HashMap<>();
+    private final Map<NavigatablePsiElement, List<TypeParameterInfo>> myGenericParameters = new HashMap<>();
+    private final Map<NavigatablePsiElement, List<String>> myExceptions = new HashMap<>();
+
+    public CachingJavaHelper(@Nonnull JavaHelper delegate) {
+        myDelegate = delegate instanceof CachingJavaHelper caching ? caching.myDelegate : delegate;
+    }
+
+    @Nullable
+    @Override
+    public NavigatablePsiElement findClass(@Nullable String className) {
+        if (className == null) {
+            return myDelegate.findClass(null);
+        }
+        Object result = myClasses.computeIfAbsent(className, o -> nullize(myDelegate.findClass(o)));
+        return result == NULL ? null : (NavigatablePsiElement)result;
+    }
+
+    @Nonnull
+    @Override
+    public List<NavigatablePsiElement> findClassMethods(
+        @Nullable String version,
+        @Nullable String className,
+        @Nonnull MethodType methodType,
+        @Nullable String methodName,
+        int paramCount,
+        String... paramTypes
+    ) {
+        MethodsKey key = new MethodsKey(version, className, methodType, methodName, paramCount, Arrays.asList(paramTypes.clone()));
+        return myClassMethods.computeIfAbsent(
+            key,
+            o -> Collections.unmodifiableList(new ArrayList<>(
+                myDelegate.findClassMethods(version, className, methodType, methodName, paramCount, paramTypes)
+            ))
+        );
+    }
+
+    @Nullable
+    @Override
+    public String getSuperClassName(@Nullable String className) {
+        if (className == null) {
+            return myDelegate.getSuperClassName(null);
+        }
+        Object result = mySuperClasses.computeIfAbsent(className, o -> nullize(myDelegate.getSuperClassName(o)));
+        return result == NULL ? null : (String)result;
+    }
+
+    /**
+     * @return the class itself followed by its super classes up to the root of the known hierarchy
+     */
+    @Nonnull
+    public List<String> getSuperChain(@Nonnull String className) {
+        List<String> chain = mySuperChains.get(className);
+        if (chain != null) {
+            return chain;
+        }
+        List<String> result = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        for (String s = className; s != null && visited.add(s); s = getSuperClassName(s)) {
+            result.add(s);
+        }
+        chain = Collections.unmodifiableList(result);
+        mySuperChains.put(className, chain);
+        return chain;
+    }
+
+    @Override
+    public List<TypeParameterInfo> getGenericParameters(NavigatablePsiElement method) {
+        return method == null ? myDelegate.getGenericParameters(null)
+            : myGenericParameters.computeIfAbsent(method, myDelegate::getGenericParameters);
+    }
+
+    @Override
+    public List<String> getExceptionList(NavigatablePsiElement method) {
+        return method == null ? myDelegate.getExceptionList(null)
+            : myExceptions.computeIfAbsent(method, myDelegate::getExceptionList);
+    }
+
+    @Nonnull
+    @Override
+    public List<String> getMethodTypes(String version, @Nullable NavigatablePsiElement method) {
+        return method == null ? myDelegate.getMethodTypes(version, null)
+            : myMethodTypes.computeIfAbsent(new MethodKey(method, version, 0), o -> myDelegate.getMethodTypes(version, method));
+    }
+
+    @Nonnull
+    @Override
+    public String getDeclaringClass(@Nullable NavigatablePsiElement method) {
+        return myDelegate.getDeclaringClass(method);
+    }
+
+    @Override
+    public boolean isPublic(@Nullable NavigatablePsiElement element) {
+        return myDelegate.isPublic(element);
+    }
+
+    @Nonnull
+    @Override
+    public List<String> getParameterAnnotations(@Nullable NavigatablePsiElement method, int paramIndex) {
+        return method == null ? myDelegate.getParameterAnnotations(null, paramIndex)
+            : myParameterAnnotations.computeIfAbsent(
+                new MethodKey(method, null, paramIndex),
+                o -> myDelegate.getParameterAnnotations(method, paramIndex)
+            );
+    }
+
+    @Nonnull
+    @Override
+    public List<String> getAnnotations(@Nullable NavigatablePsiElement element) {
+        return element == null ? myDelegate.getAnnotations(null)
+            : myAnnotations.computeIfAbsent(element, myDelegate::getAnnotations);
+    }
+
+    @Nullable
+    @Override
+    public PsiReferenceProvider getClassReferenceProvider() {
+        return myDelegate.getClassReferenceProvider();
+    }
+
+    @Nullable
+    @Override
+    public NavigationItem findPackage(@Nullable String packageName) {
+        return myDelegate.findPackage(packageName);
+    }
+
+    @Nonnull
+    private static Object nullize(@Nullable Object o) {
+        return o == null ? NULL : o;
+    }
+
+    private record MethodsKey(
+        @Nullable String version,
+        @Nullable String className,
+        @Nonnull MethodType methodType,
+        @Nullable String methodName,
+        int paramCount,
+        @Nonnull List<String> paramTypes
+    ) {
+    }
+
+    private record MethodKey(@Nonnull NavigatablePsiElement method, @Nullable String version, int paramIndex) {
+    }
+}
@@ -35,6 +35,7 @@ import org.intellij.grammar.psi.*;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 /**
@@ -44,7 +45,7 @@ import java.util.regex.Pattern;
 public class BnfFileImpl extends PsiFileBase implements BnfFile {
     private final CachedValue<Map<String, BnfRule>> myRules;
     private final CachedValue<List<BnfAttrs>> myGlobalAttributes;
-    private final CachedValue<Map<String, List<AttributeInfo>>> myAttributeValues;
+    private final CachedValue<AttributeTable> myAttributeValues;
 
     public BnfFileImpl(FileViewProvider fileViewProvider) {
         super(fileViewProvider, BnfLanguage.INSTANCE);
@@ -120,10 +121,31 @@ public class BnfFileImpl extends PsiFileBase implements BnfFile {
         @Nonnull KnownAttribute<T> knownAttribute,
         @Nullable String match
     ) {
-        List<AttributeInfo> list = myAttributeValues.getValue().get(knownAttribute.getName());
+        AttributeTable table = myAttributeValues.getValue();
+        String name = knownAttribute.getName();
+        List<AttributeInfo> list = table.values.get(name);
         if (list == null) {
             return null;
         }
+        if (match == null) {
+            Map<String, AttributeInfo> resolved = rule == null ? table.globalValues : table.ruleValues.get(rule);
+            if (resolved != null) {
+                return resolved.get(name);
+            }
+            return resolveAttributeInfo(list, rule, null);
+        }
+        MatchKey key = new MatchKey(rule, name, match);
+        Object cached = table.matchValues.get(key);
+        if (cached == null) {
+            AttributeInfo info = resolveAttributeInfo(list, rule, match);
+            table.matchValues.putIfAbsent(key, cached = info == null ? NO_VALUE : info);
+        }
+        return cached == NO_VALUE ? null : (AttributeInfo)cached;
+    }
+
+    @Nullable
+    @RequiredReadAction
+    private AttributeInfo resolveAttributeInfo(@Nonnull List<AttributeInfo> list, @Nullable BnfRule rule, @Nullable String match) {
         BnfAttrs globalAttrs = rule == null ? ContainerUtil.getFirstItem(getAttributes()) : null;
         int offset = rule == null
             ? globalAttrs == null
@@ -183,7 +205,32 @@ public class BnfFileImpl extends PsiFileBase implements BnfFile {
     }
 
     @RequiredReadAction
-    private Map<String, List<AttributeInfo>> calcAttributeValues() {
+    private AttributeTable calcAttributeValues() {
+        Map<String, List<AttributeInfo>> values = calcAttributeInfos();
+        // resolve the attributes of every rule once, lookups by a sub-expression name are resolved on demand
+        Map<String, AttributeInfo> globalValues = resolveAttributeInfos(values, null);
+        Map<BnfRule, Map<String, AttributeInfo>> ruleValues = new HashMap<>();
+        for (BnfRule rule : GrammarUtil.bnfTraverser(this).filter(BnfRule.class)) {
+            ruleValues.put(rule, resolveAttributeInfos(values, rule));
+        }
+        return new AttributeTable(values, globalValues, ruleValues);
+    }
+
+    @Nonnull
+    @RequiredReadAction
+    private Map<String, AttributeInfo> resolveAttributeInfos(@Nonnull Map<String, List<AttributeInfo>> values, @Nullable BnfRule rule) {
+        Map<String, AttributeInfo> result = new HashMap<>();
+        for (Map.Entry<String, List<AttributeInfo>> entry : values.entrySet()) {
+            AttributeInfo info = resolveAttributeInfo(entry.getValue(), rule, null);
+            if (info != null) {
+                result.put(entry.getKey(), info);
+            }
+        }
+        return result;
+    }
+
+    @RequiredReadAction
+    private Map<String, List<AttributeInfo>> calcAttributeInfos() {
         Map<String, List<AttributeInfo>> result = new HashMap<>();
         for (BnfAttrs attrs : GrammarUtil.bnfTraverser(this).filter(BnfAttrs.class)) {
             boolean isRule = attrs.getParent() instanceof BnfRule;
@@ -220,6 +267,28 @@ public class BnfFileImpl extends PsiFileBase implements BnfFile {
         return result;
     }
 
+    private static final Object NO_VALUE = new Object();
+
+    private record MatchKey(@Nullable BnfRule rule, @Nonnull String attribute, @Nonnull String match) {
+    }
+
+    private static class AttributeTable {
+        final Map<String, List<AttributeInfo>> values;
+        final Map<String, AttributeInfo> globalValues;
+        final Map<BnfRule, Map<String, AttributeInfo>> ruleValues;
+        final Map<MatchKey, Object> matchValues = new ConcurrentHashMap<>();
+
+        AttributeTable(
+            Map<String, List<AttributeInfo>> values,
+            Map<String, AttributeInfo> globalValues,
+            Map<BnfRule, Map<String, AttributeInfo>> ruleValues
+        ) {
+            this.values = values;
+            this.globalValues = globalValues;
+            this.ruleValues = ruleValues;
+        }
+    }
+
     private static class AttributeInfo implements Comparable<AttributeInfo> {
         final int attrOffset;
         final int offset;
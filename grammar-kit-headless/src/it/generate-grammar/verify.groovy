@@ -0,0 +1,11 @@
+def gen = new File(basedir, 'target/generated-sources/grammar-kit/org/intellij/grammar')
+assert new File(gen, 'parser/GrammarParser.java').isFile()
+
+// the method of psiImplUtilClass is read from the class path and delegated to
+def listEntry = new File(gen, 'psi/impl/BnfListEntryImpl.java')
+assert listEntry.isFile()
+assert listEntry.text.contains('GrammarPsiImplUtil.getReferences(this)')
+
+def log = new File(basedir, 'build.log').text
+assert log.contains('grammar.bnf generated')
+assert !log.contains('not found')
@@ -0,0 +1,572 @@
+package consulo.devkit.grammarKit.headless;
+
+import consulo.internal.org.objectweb.asm.*;
+import consulo.language.psi.NavigatablePsiElement;
+import consulo.util.lang.StringUtil;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.intellij.grammar.java.JavaHelper;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link JavaHelper} reading class files of a class path with ASM, for the light project of {@link HeadlessEnvironment}
+ * which has no Java PSI.
+ * <p>
+ * Answers the same queries as the IDE helper and in the same form, so both generate the same code for classes they both see.
+ * Classes only present as sources, e.g. in the module being built, are not found: the generator reports them
+ * as not found and generates without their method signatures.
+ * <p>
+ * Parameter names are taken from the {@code MethodParameters} attribute or the local variable table,
+ * {@code p0, p1...} if the class is compiled without them. Instances are thread safe.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+public class AsmJavaHelper extends JavaHelper implements Closeable {
+    private static final String OBJECT = "java.lang.Object";
+    private static final String CONSTRUCTOR_NAME = "<init>";
+
+    private final URLClassLoader myClassLoader;
+    private final Map<String, Optional<ClassInfo>> myClasses = new ConcurrentHashMap<>();
+
+    /**
+     * @param classPath jars and class directories, JDK classes are found without them
+     */
+    public AsmJavaHelper(@Nonnull List<Path> classPath) {
+        URL[] urls = new URL[classPath.size()];
+        for (int i = 0; i < urls.length; i++) {
+            try {
+                urls[i] = classPath.get(i).toUri().toURL();
+            }
+            catch (MalformedURLException e) {
+                throw new IllegalArgumentException(classPath.get(i).toString(), e);
+            }
+        }
+        myClassLoader = new URLClassLoader(urls, ClassLoader.getPlatformClassLoader());
+    }
+
+    @Nullable
+    @Override
+    public NavigatablePsiElement findClass(@Nullable String className) {
+        ClassInfo info = getClassInfo(className);
+        return info == null ? null : info.myElement;
+    }
+
+    @Nonnull
+    @Override
+    public List<NavigatablePsiElement> findClassMethods(
+        @Nullable String version,
+        @Nullable String className,
+        @Nonnull MethodType methodType,
+        @Nullable String methodName,
+        int paramCount,
+        String... paramTypes
+    ) {
+        ClassInfo info = methodName == null ? null : getClassInfo(className);
+        if (info == null) {
+            return Collections.emptyList();
+        }
+        List<NavigatablePsiElement> result = new ArrayList<>();
+        for (MethodInfo method : info.myMethods) {
+            if (methodType == MethodType.CONSTRUCTOR != CONSTRUCTOR_NAME.equals(method.myName)) {
+                continue;
+            }
+            if (methodType != MethodType.CONSTRUCTOR && !acceptsName(methodName, method.myName)) {
+                continue;
+            }
+            if (!acceptsModifiers(method.myAccess, methodType == MethodType.STATIC)) {
+                continue;
+            }
+            if (!acceptsParameters(method, paramCount, paramTypes)) {
+                continue;
+            }
+            result.add(method.myElement);
+        }
+        return result;
+    }
+
+    @Nullable
+    @Override
+    public String getSuperClassName(@Nullable String className) {
+        ClassInfo info = getClassInfo(className);
+        return info == null ? null : info.mySuperClass;
+    }
+
+    @Nonnull
+    @Override
+    public List<String> getMethodTypes(String version, @Nullable NavigatablePsiElement method) {
+        if (!(method instanceof AsmElement element) || !(element.getDelegate() instanceof MethodInfo info)) {
+            return super.getMethodTypes(version, method);
+        }
+        List<String> strings = new ArrayList<>(1 + 2 * info.myParameterTypes.size());
+        strings.add(CONSTRUCTOR_NAME.equals(info.myName) ? "" : info.myReturnType);
+        for (int i = 0; i < info.myParameterTypes.size(); i++) {
+            strings.add(info.myParameterTypes.get(i));
+            strings.add(info.getParameterName(i));
+        }
+        return strings;
+    }
+
+    @Nonnull
+    @Override
+    public String getDeclaringClass(@Nullable NavigatablePsiElement method) {
+        if (!(method instanceof AsmElement element) || !(element.getDelegate() instanceof MethodInfo info)) {
+            return super.getDeclaringClass(method);
+        }
+        return info.myClass.myName;
+    }
+
+    @Nonnull
+    @Override
+    public List<String> getAnnotations(@Nullable NavigatablePsiElement element) {
+        if (!(element instanceof AsmElement asmElement)) {
+            return super.getAnnotations(element);
+        }
+        return asmElement.getDelegate() instanceof MethodInfo method ? method.myAnnotations
+            : ((ClassInfo)asmElement.getDelegate()).myAnnotations;
+    }
+
+    @Override
+    public void close() throws IOException {
+        myClassLoader.close();
+    }
+
+    @Nullable
+    private ClassInfo getClassInfo(@Nullable String className) {
+        if (className == null || className.isEmpty()) {
+            return null;
+        }
+        int typeArguments = className.indexOf('<');
+        String name = typeArguments < 0 ? className : className.substring(0, typeArguments);
+        return myClasses.computeIfAbsent(name, this::readClass).orElse(null);
+    }
+
+    /**
+     * Nested classes are written with dots like in the sources, so every dot from the last one on may be a {@code $}.
+     */
+    @Nonnull
+    private Optional<ClassInfo> readClass(@Nonnull String className) {
+        String path = className.replace('.', '/');
+        while (true) {
+            try (InputStream stream = myClassLoader.getResourceAsStream(path + ".class")) {
+                if (stream != null) {
+                    ClassInfo info = new ClassInfo();
+                    new ClassReader(stream).accept(new ClassInfoReader(info), ClassReader.SKIP_FRAMES);
+                    return Optional.of(info);
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(className + " can not be read", e);
+            }
+            int separator = path.lastIndexOf('/');
+            if (separator < 0) {
+                return Optional.empty();
+            }
+            path = path.substring(0, separator) + '$' + path.substring(separator + 1);
+        }
+    }
+
+    private static boolean acceptsModifiers(int access, boolean staticMethods) {
+        return staticMethods == ((access & Opcodes.ACC_STATIC) != 0)
+            && (access & (Opcodes.ACC_ABSTRACT | Opcodes.ACC_PROTECTED | Opcodes.ACC_PRIVATE)) == 0;
+    }
+
+    private boolean acceptsParameters(@Nonnull MethodInfo method, int paramCount, String... paramTypes) {
+        List<String> types = method.myParameterTypes;
+        if (paramCount >= 0 && paramCount != types.size()) {
+            return false;
+        }
+        if (types.size() < paramTypes.length) {
+            return false;
+        }
+        for (int i = 0; i < paramTypes.length; i++) {
+            String type = unwrapTypeVariable(types.get(i));
+            if (!acceptsName(paramTypes[i], type) && !isAssignable(type, paramTypes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether a value of {@code type} can be passed as a parameter of {@code parameterType}, type arguments are ignored
+     */
+    private boolean isAssignable(@Nonnull String parameterType, @Nonnull String type) {
+        String target = eraseTypeArguments(parameterType);
+        if (OBJECT.equals(target)) {
+            return true;
+        }
+        Set<String> visited = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        queue.add(eraseTypeArguments(type));
+        while (!queue.isEmpty()) {
+            String s = queue.poll();
+            if (!visited.add(s)) {
+                continue;
+            }
+            if (target.equals(s)) {
+                return true;
+            }
+            ClassInfo info = getClassInfo(s);
+            if (info != null) {
+                if (info.mySuperClass != null) {
+                    queue.add(info.mySuperClass);
+                }
+                queue.addAll(info.myInterfaces);
+            }
+        }
+        return false;
+    }
+
+    @Nonnull
+    private static String eraseTypeArguments(@Nonnull String type) {
+        int typeArguments = type.indexOf('<');
+        return typeArguments < 0 ? type : type.substring(0, typeArguments);
+    }
+
+    @Nonnull
+    private static String unwrapTypeVariable(@Nonnull String type) {
+        return type.startsWith("<") && type.endsWith(">") ? type.substring(1, type.length() - 1) : type;
+    }
+
+    private static class AsmElement extends MyElement<Object> {
+        private final String myName;
+
+        AsmElement(@Nonnull Object delegate, @Nonnull String name) {
+            super(delegate);
+            myName = name;
+        }
+
+        @Override
+        public String getName() {
+            return myName;
+        }
+    }
+
+    private static class ClassInfo {
+        private String myName;
+        private String mySuperClass;
+        private List<String> myInterfaces = List.of();
+        private final List<String> myAnnotations = new ArrayList<>();
+        private final List<MethodInfo> myMethods = new ArrayList<>();
+        private AsmElement myElement;
+
+        @Override
+        public String toString() {
+            return myName;
+        }
+    }
+
+    private static class MethodInfo {
+        private final ClassInfo myClass;
+        private final String myName;
+        private final int myAccess;
+        private final String myReturnType;
+        private final List<String> myParameterTypes;
+        private final String[] myParameterNames;
+        private final int[] myParameterSlots;
+        private final List<String> myAnnotations = new ArrayList<>();
+        private final AsmElement myElement;
+
+        MethodInfo(@Nonnull ClassInfo aClass, int access, @Nonnull String name, @Nonnull String descriptor, @Nullable String signature) {
+            myClass = aClass;
+            myName = name;
+            myAccess = access;
+            List<String> types = new ArrayList<>();
+            new TypeTextParser(signature != null ? signature : descriptor).parseMethod(types);
+            int last = types.size() - 1;
+            if ((access & Opcodes.ACC_VARARGS) != 0 && last > 0 && types.get(last - 1).endsWith("[]")) {
+                String varargs = types.get(last - 1);
+                types.set(last - 1, varargs.substring(0, varargs.length() - 2) + "...");
+            }
+            myReturnType = types.get(last);
+            myParameterTypes = List.copyOf(types.subList(0, last));
+            myParameterNames = new String[myParameterTypes.size()];
+            // local variable slots of the parameters, wide primitives take two of them
+            myParameterSlots = new int[myParameterTypes.size()];
+            Type[] argumentTypes = Type.getArgumentTypes(descriptor);
+            int slot = (access & Opcodes.ACC_STATIC) != 0 ? 0 : 1;
+            // the descriptor of an inner class constructor may have more parameters than the signature
+            int shift = Math.max(0, argumentTypes.length - myParameterSlots.length);
+            for (int i = 0; i < argumentTypes.length && i - shift < myParameterSlots.length; i++) {
+                if (i >= shift) {
+                    myParameterSlots[i - shift] = slot;
+                }
+                slot += argumentTypes[i].getSize();
+            }
+            myElement = new AsmElement(this, CONSTRUCTOR_NAME.equals(name) ? StringUtil.getShortName(aClass.myName) : name);
+        }
+
+        @Nonnull
+        String getParameterName(int index) {
+            String name = myParameterNames[index];
+            return name != null ? name : "p" + index;
+        }
+
+        void setLocalVariableName(@Nonnull String name, int slot) {
+            for (int i = 0; i < myParameterSlots.length; i++) {
+                if (myParameterSlots[i] == slot && myParameterNames[i] == null) {
+                    myParameterNames[i] = name;
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return myClass.myName + "." + myName;
+        }
+    }
+
+    private static class ClassInfoReader extends ClassVisitor {
+        private final ClassInfo myInfo;
+
+        ClassInfoReader(@Nonnull ClassInfo info) {
+            super(Opcodes.ASM9);
+            myInfo = info;
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            myInfo.myName = toCanonicalName(name);
+            myInfo.mySuperClass = superName == null ? null : toCanonicalName(superName);
+            List<String> list = new ArrayList<>();
+            if (interfaces != null) {
+                for (String s : interfaces) {
+                    list.add(toCanonicalName(s));
+                }
+            }
+            myInfo.myInterfaces = list;
+            myInfo.myElement = new AsmElement(myInfo, StringUtil.getShortName(myInfo.myName));
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String descriptor, boolean visible) {
+            return new AnnotationReader(descriptor, myInfo.myAnnotations);
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            if ((access & (Opcodes.ACC_SYNTHETIC | Opcodes.ACC_BRIDGE)) != 0 || "<clinit>".equals(name)) {
+                return null;
+            }
+            MethodInfo method = new MethodInfo(myInfo, access, name, descriptor, signature);
+            myInfo.myMethods.add(method);
+            return new MethodVisitor(Opcodes.ASM9) {
+                private int myParameterIndex;
+
+                @Override
+                public void visitParameter(String parameterName, int parameterAccess) {
+                    // implicit and synthetic parameters are not in the signature
+                    int index = myParameterIndex++ - (Type.getArgumentTypes(descriptor).length - method.myParameterNames.length);
+                    if (parameterName != null && index >= 0
+                        && (parameterAccess & (Opcodes.ACC_SYNTHETIC | Opcodes.ACC_MANDATED)) == 0) {
+                        method.myParameterNames[index] = parameterName;
+                    }
+                }
+
+                @Override
+                public AnnotationVisitor visitAnnotation(String annotationDescriptor, boolean visible) {
+                    return new AnnotationReader(annotationDescriptor, method.myAnnotations);
+                }
+
+                @Override
+                public void visitLocalVariable(String variableName, String variableDescriptor, String variableSignature,
+                                               Label start, Label end, int index) {
+                    // a slot of a parameter may be reused by a later local variable
+                    if (start.getOffset() == 0) {
+                        method.setLocalVariableName(variableName, index);
+                    }
+                }
+            };
+        }
+    }
+
+    /**
+     * Collects the annotation name unless it has attribute values, like the IDE helper does.
+     */
+    private static class AnnotationReader extends AnnotationVisitor {
+        private final String myName;
+        private final List<String> myResult;
+        private boolean myHasValues;
+
+        AnnotationReader(@Nonnull String descriptor, @Nonnull List<String> result) {
+            super(Opcodes.ASM9);
+            myName = Type.getType(descriptor).getClassName().replace('$', '.');
+            myResult = result;
+        }
+
+        @Override
+        public void visit(String name, Object value) {
+            myHasValues = true;
+        }
+
+        @Override
+        public void visitEnum(String name, String descriptor, String value) {
+            myHasValues = true;
+        }
+
+        @Override
+        public AnnotationVisitor visitAnnotation(String name, String descriptor) {
+            myHasValues = true;
+            return null;
+        }
+
+        @Override
+        public AnnotationVisitor visitArray(String name) {
+            myHasValues = true;
+            return null;
+        }
+
+        @Override
+        public void visitEnd() {
+            if (!myHasValues) {
+                myResult.add(myName);
+            }
+        }
+    }
+
+    @Nonnull
+    private static String toCanonicalName(@Nonnull String internalName) {
+        return internalName.replace('/', '.').replace('$', '.');
+    }
+
+    /**
+     * Turns descriptors and generic signatures into the canonical type texts of the sources, e.g.
+     * {@code java.util.List<? extends T>}. A parameter of a type variable type is written as {@code <T>}.
+     */
+    private static class TypeTextParser {
+        private final String myText;
+        private int myOffset;
+
+        TypeTextParser(@Nonnull String text) {
+            myText = text;
+        }
+
+        /**
+         * Adds the parameter types followed by the return type.
+         */
+        void parseMethod(@Nonnull List<String> result) {
+            if (peek() == '<') {
+                skipFormalTypeParameters();
+            }
+            expect('(');
+            while (peek() != ')') {
+                result.add(parseType(true));
+            }
+            expect(')');
+            result.add(parseType(false));
+        }
+
+        private void skipFormalTypeParameters() {
+            expect('<');
+            while (peek() != '>') {
+                myOffset = myText.indexOf(':', myOffset);
+                while (peek() == ':') {
+                    myOffset++;
+                    if (peek() != ':') {
+                        parseType(false);
+                    }
+                }
+            }
+            expect('>');
+        }
+
+        @Nonnull
+        private String parseType(boolean markTypeVariable) {
+            char c = myText.charAt(myOffset++);
+            switch (c) {
+                case 'Z':
+                    return "boolean";
+                case 'B':
+                    return "byte";
+                case 'C':
+                    return "char";
+                case 'S':
+                    return "short";
+                case 'I':
+                    return "int";
+                case 'J':
+                    return "long";
+                case 'F':
+                    return "float";
+                case 'D':
+                    return "double";
+                case 'V':
+                    return "void";
+                case '[':
+                    return parseType(false) + "[]";
+                case 'T': {
+                    int end = myText.indexOf(';', myOffset);
+                    String name = myText.substring(myOffset, end);
+                    myOffset = end + 1;
+                    return markTypeVariable ? "<" + name + ">" : name;
+                }
+                case 'L':
+                    return parseClassType();
+                default:
+                    throw new IllegalArgumentException("Unexpected '" + c + "' at " + (myOffset - 1) + " in " + myText);
+            }
+        }
+
+        @Nonnull
+        private String parseClassType() {
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = myText.charAt(myOffset++);
+                if (c == ';') {
+                    return sb.toString();
+                }
+                if (c == '/' || c == '$' || c == '.') {
+                    sb.append('.');
+                }
+                else if (c == '<') {
+                    sb.append('<');
+                    boolean first = true;
+                    while (peek() != '>') {
+                        if (!first) {
+                            sb.append(", ");
+                        }
+                        first = false;
+                        char wildcard = peek();
+                        if (wildcard == '*') {
+                            myOffset++;
+                            sb.append('?');
+                        }
+                        else if (wildcard == '+' || wildcard == '-') {
+                            myOffset++;
+                            sb.append(wildcard == '+' ? "? extends " : "? super ").append(parseType(false));
+                        }
+                        else {
+                            sb.append(parseType(false));
+                        }
+                    }
+                    myOffset++;
+                    sb.append('>');
+                }
+                else {
+                    sb.append(c);
+                }
+            }
+        }
+
+        private char peek() {
+            return myText.charAt(myOffset);
+        }
+
+        private void expect(char c) {
+            if (myText.charAt(myOffset++) != c) {
+                throw new IllegalArgumentException("'" + c + "' expected at " + (myOffset - 1) + " in " + myText);
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package consulo.devkit.grammarKit.headless;
+
+import consulo.devkit.grammarKit.generator.GenerateTarget;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.intellij.grammar.generator.HeadlessParserGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Generates parsers for the {@code .bnf} files of a module with {@link HeadlessParserGenerator}.
+ * <p>
+ * Grammars of a module are generated in parallel, grammars whose inputs did not change since the previous build
+ * are skipped. The goal is thread safe, so modules of a {@code mvn -T} build are generated concurrently as well.
+ * <p>
+ * Classes referenced by the grammars are read from the compile class path of the module by {@link AsmJavaHelper}.
+ * The output directory of the module itself is left out, as classes compiled by a previous build may be stale,
+ * so classes of the module being built are reported as not found and generated without their method signatures.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+@Mojo(
+    name = "generate",
+    defaultPhase = LifecyclePhase.GENERATE_SOURCES,
+    requiresDependencyResolution = ResolutionScope.COMPILE,
+    threadSafe = true
+)
+public class GenerateParsersMojo extends AbstractMojo {
+    private static final String GRAMMAR_EXTENSION = ".bnf";
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    /**
+     * Directories searched for grammars and for the Java sources referenced by them, the compile source roots by default.
+     */
+    @Parameter
+    private List<File> sourceDirectories;
+
+    /**
+     * Root of the generated sources, {@code grammar.kit.gen.dir} under the module base directory by default.
+     */
+    @Parameter(property = "grammarKit.outputDirectory")
+    private File outputDirectory;
+
+    @Parameter(defaultValue = "${project.build.directory}/grammar-kit", required = true)
+    private File stampDirectory;
+
+    /**
+     * Generated parser flavors, all of them by default.
+     */
+    @Parameter
+    private Set<GenerateTarget> targets;
+
+    /**
+     * Number of grammars generated concurrently, the number of processors if not positive.
+     */
+    @Parameter(property = "grammarKit.parallelism", defaultValue = "0")
+    private int parallelism;
+
+    @Parameter(property = "grammarKit.skip", defaultValue = "false")
+    private boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("Parser generation is skipped");
+            return;
+        }
+
+        List<Path> sourceRoots = new ArrayList<>();
+        if (sourceDirectories != null && !sourceDirectories.isEmpty()) {
+            for (File directory : sourceDirectories) {
+                sourceRoots.add(directory.toPath());
+            }
+        }
+        else {
+            for (String root : project.getCompileSourceRoots()) {
+                sourceRoots.add(Path.of(root));
+            }
+        }
+        Path outputDir = outputDirectory != null
+            ? outputDirectory.toPath()
+            : HeadlessParserGenerator.getDefaultOutputDir(project.getBasedir().toPath());
+        sourceRoots.remove(outputDir);
+
+        List<Path> grammars = findGrammars(sourceRoots);
+        if (grammars.isEmpty()) {
+            getLog().info("No grammars to generate");
+            return;
+        }
+
+        List<Path> classPath = getClassPath();
+        List<HeadlessParserGenerator.Result> results;
+        try (AsmJavaHelper javaHelper = new AsmJavaHelper(classPath)) {
+            HeadlessParserGenerator generator = new HeadlessParserGenerator(
+                HeadlessEnvironment.getInstance().getProject(),
+                outputDir,
+                stampDirectory.toPath(),
+                sourceRoots,
+                classPath,
+                javaHelper,
+                targets == null || targets.isEmpty() ? EnumSet.allOf(GenerateTarget.class) : EnumSet.copyOf(targets),
+                parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors()
+            );
+            results = generator.generate(grammars);
+        }
+        catch (IOException e) {
+            throw new MojoExecutionException("Failed to close the class path", e);
+        }
+
+        int failed = 0;
+        for (HeadlessParserGenerator.Result result : results) {
+            if (result.error() != null) {
+                failed++;
+                getLog().error(result.grammar() + " generation failed", result.error());
+            }
+            else if (result.upToDate()) {
+                getLog().info(result.grammar().getFileName() + " is up to date");
+            }
+            else {
+                getLog().info(String.format(
+                    "%s generated: %d files written, %d unchanged in %d ms",
+                    result.grammar().getFileName(),
+                    result.written(),
+                    result.files().size() - result.written(),
+                    result.millis()
+                ));
+            }
+        }
+
+        project.addCompileSourceRoot(outputDir.toString());
+
+        if (failed > 0) {
+            throw new MojoFailureException(failed + " of " + grammars.size() + " grammars failed to generate");
+        }
+    }
+
+    private List<Path> getClassPath() throws MojoExecutionException {
+        Path outputDir = Path.of(project.getBuild().getOutputDirectory());
+        List<Path> classPath = new ArrayList<>();
+        try {
+            for (String element : project.getCompileClasspathElements()) {
+                Path path = Path.of(element);
+                if (!path.equals(outputDir)) {
+                    classPath.add(path);
+                }
+            }
+        }
+        catch (DependencyResolutionRequiredException e) {
+            throw new MojoExecutionException("Compile dependencies of " + project.getId() + " are not resolved", e);
+        }
+        return classPath;
+    }
+
+    private static List<Path> findGrammars(List<Path> sourceRoots) throws MojoExecutionException {
+        List<Path> grammars = new ArrayList<>();
+        for (Path root : sourceRoots) {
+            if (!Files.isDirectory(root)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(root)) {
+                files.filter(file -> file.getFileName().toString().endsWith(GRAMMAR_EXTENSION) && Files.isRegularFile(file))
+                    .sorted()
+                    .forEach(grammars::add);
+            }
+            catch (IOException e) {
+                throw new MojoExecutionException("Failed to search grammars in " + root, e);
+            }
+        }
+        return grammars;
+    }
+}
@@ -0,0 +1,48 @@
+package consulo.devkit.grammarKit.headless;
+
+import consulo.application.Application;
+import consulo.disposer.Disposable;
+import consulo.disposer.Disposer;
+import consulo.project.Project;
+import consulo.test.light.LightApplicationBuilder;
+import consulo.test.light.LightProjectBuilder;
+import jakarta.annotation.Nonnull;
+
+/**
+ * Light application and project for parsing grammars outside the IDE, the BNF language and its parser definition
+ * are bound from {@code grammar-kit-core} on the class path.
+ * <p>
+ * The application is a JVM-wide singleton, so one environment is shared by all the users in the JVM,
+ * e.g. by the modules of a parallel Maven build. It is disposed on JVM shutdown.
+ * <p>
+ * The builders come from {@code consulo-test-impl}, as the platform has no other way to start an application
+ * without the IDE. Only the light application and project are used, nothing of the test framework.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+public class HeadlessEnvironment {
+    private static HeadlessEnvironment ourInstance;
+
+    private final Project myProject;
+
+    private HeadlessEnvironment(@Nonnull Disposable disposable) {
+        Application application = LightApplicationBuilder.create(disposable).build();
+        myProject = LightProjectBuilder.create(application).build();
+    }
+
+    @Nonnull
+    public static synchronized HeadlessEnvironment getInstance() {
+        if (ourInstance == null) {
+            Disposable disposable = Disposable.newDisposable("grammar-kit headless environment");
+            ourInstance = new HeadlessEnvironment(disposable);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> Disposer.dispose(disposable), "grammar-kit headless shutdown"));
+        }
+        return ourInstance;
+    }
+
+    @Nonnull
+    public Project getProject() {
+        return myProject;
+    }
+}
@@ -0,0 +1,76 @@
+package consulo.devkit.grammarKit.headless;
+
+import consulo.devkit.grammarKit.generator.GenerateTarget;
+import org.intellij.grammar.generator.HeadlessParserGenerator;
+import org.intellij.grammar.psi.impl.GrammarPsiImplUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Generates the grammar of the BNF language itself, the classes it references are read from the {@code grammar-kit-core} jar.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+public class HeadlessParserGeneratorTest {
+    private static final Path GRAMMAR = Path.of("../grammar-kit-core/src/main/java/org/intellij/grammar/grammar.bnf");
+
+    @TempDir
+    Path myTempDir;
+
+    @Test
+    public void testGenerate() throws Exception {
+        Path outputDir = myTempDir.resolve("gen");
+        HeadlessParserGenerator.Result result = generate(outputDir);
+        assertNull(result.error());
+        assertFalse(result.upToDate());
+        assertEquals(result.files().size(), result.written());
+
+        Path parser = outputDir.resolve("org/intellij/grammar/parser/GrammarParser.java");
+        assertTrue(Files.isRegularFile(parser));
+        // psiImplUtilClass methods are found by the helper and delegated to
+        String listEntry = Files.readString(outputDir.resolve("org/intellij/grammar/psi/impl/BnfListEntryImpl.java"));
+        assertTrue(listEntry.contains("GrammarPsiImplUtil.getReferences(this)"), listEntry);
+    }
+
+    @Test
+    public void testUpToDate() throws Exception {
+        Path outputDir = myTempDir.resolve("gen");
+        assertFalse(generate(outputDir).upToDate());
+        assertTrue(generate(outputDir).upToDate());
+
+        HeadlessParserGenerator.Result other = generate(myTempDir.resolve("other"));
+        assertNull(other.error());
+        assertFalse(other.upToDate());
+        assertTrue(Files.isRegularFile(myTempDir.resolve("other/org/intellij/grammar/parser/GrammarParser.java")));
+    }
+
+    private HeadlessParserGenerator.Result generate(Path outputDir) throws Exception {
+        List<Path> classPath = List.of(getCoreClassPath());
+        try (AsmJavaHelper javaHelper = new AsmJavaHelper(classPath)) {
+            HeadlessParserGenerator generator = new HeadlessParserGenerator(
+                HeadlessEnvironment.getInstance().getProject(),
+                outputDir,
+                myTempDir.resolve("stamps"),
+                List.of(),
+                classPath,
+                javaHelper,
+                EnumSet.allOf(GenerateTarget.class),
+                1
+            );
+            return generator.generate(GRAMMAR);
+        }
+    }
+
+    private static Path getCoreClassPath() throws URISyntaxException {
+        return Path.of(GrammarPsiImplUtil.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    }
+}
@@ -41,6 +41,8 @@ module consulo.devkit.grammar.kit {
     requires consulo.java;
     requires consulo.internal.jdi;
 
+    requires java.compiler;
+
     // TODO remove in future
     requires java.desktop;
 
@@ -17,12 +17,13 @@ package org.intellij.grammar.impl.actions;
 
 import consulo.annotation.access.RequiredReadAction;
 import consulo.application.Application;
+import consulo.application.ReadAction;
 import consulo.application.progress.PerformInBackgroundOption;
 import consulo.application.progress.ProgressIndicator;
 import consulo.application.progress.ProgressManager;
 import consulo.application.progress.Task;
-import consulo.application.util.function.ThrowableComputable;
 import consulo.component.ProcessCanceledException;
+import consulo.devkit.grammarKit.generator.BatchRunner;
 import consulo.devkit.grammarKit.generator.GenerateTarget;
 import consulo.devkit.grammarKit.impl.BnfNotificationGroup;
 import consulo.document.FileDocumentManager;
@@ -52,12 +53,11 @@ import consulo.virtualFileSystem.util.VirtualFileUtil;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import org.intellij.grammar.KnownAttribute;
+import org.intellij.grammar.config.Options;
 import org.intellij.grammar.generator.ParserGenerator;
 import org.intellij.grammar.psi.BnfFile;
 
 import java.io.File;
-import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.*;
 
 import static org.intellij.grammar.generator.ParserGeneratorUtil.getRootAttribute;
@@ -134,97 +134,156 @@ public class GenerateAction extends AnAction implements AnActionWithAsyncUpdate
 
         ProgressManager.getInstance().run(
             new Task.Backgroundable(project, "Parser Generation", true, PerformInBackgroundOption.ALWAYS_BACKGROUND) {
-                List<File> files = new ArrayList<>();
-                Set<VirtualFile> targets = new LinkedHashSet<>();
-                long totalWritten = 0;
-
                 @Override
-                @RequiredReadAction
                 public void run(@Nonnull ProgressIndicator indicator) {
                     long startTime = System.currentTimeMillis();
                     indicator.setIndeterminate(true);
+                    List<GenerationResult> results = new ArrayList<>();
                     try {
-                        runInner();
+                        BatchRunner.run(bnfFiles, indicator, file -> generate(file, rootMap.get(file), generateTargets, indicator), results);
                     }
                     finally {
-                        String report = String.format(
-                            "%d grammars: %d files generated (%s) in %s",
-                            bnfFiles.size(),
-                            files.size(),
-                            StringUtil.formatFileSize(totalWritten),
-                            StringUtil.formatDuration(System.currentTimeMillis() - startTime)
-                        );
-                        if (bnfFiles.size() > 3) {
-                            Notifications.Bus.notify(
-                                new Notification(BnfNotificationGroup.GRAMMAR_KIT, "", report, NotificationType.INFORMATION),
-                                project
-                            );
+                        reportResults(project, results, System.currentTimeMillis() - startTime);
+                        Set<VirtualFile> targets = new LinkedHashSet<>();
+                        for (GenerationResult result : results) {
+                            targets.add(result.target());
                         }
                         VirtualFileUtil.markDirtyAndRefresh(true, true, true, targets.toArray(new VirtualFile[targets.size()]));
                     }
                 }
+            }
+        );
+    }
 
-                @RequiredReadAction
-                private void runInner() {
-                    for (final BnfFile file : bnfFiles) {
-                        final String sourcePath =
-                            FileUtil.toSystemDependentName(PathUtil.getCanonicalPath(file.getVirtualFile().getParent().getPath()));
-                        VirtualFile target = rootMap.get(file);
-                        if (target == null) {
-                            return;
-                        }
-                        targets.add(target);
-                        final File genDir = new File(VirtualFileUtil.virtualToIoFile(target).getAbsolutePath());
-                        try {
-                            long time = System.currentTimeMillis();
-                            int filesCount = files.size();
-                            Application.get().runReadAction(new ThrowableComputable<Boolean, Exception>() {
-                                @Override
-                                public Boolean compute() throws Exception {
-                                    new ParserGenerator(file, sourcePath, genDir.getPath(), "") {
-                                        @Override
-                                        protected PrintWriter openOutputInner(File file) throws IOException {
-                                            files.add(file);
-                                            return super.openOutputInner(file);
-                                        }
-                                    }.generate(generateTargets);
-                                    return true;
-                                }
-                            });
-                            long millis = System.currentTimeMillis() - time;
-                            String duration = millis < 1000 ? null : StringUtil.formatDuration(millis);
-                            long written = 0;
-                            for (File f : files.subList(filesCount, files.size())) {
-                                written += f.length();
-                            }
-                            totalWritten += written;
-                            Notifications.Bus.notify(
-                                new Notification(
-                                    BnfNotificationGroup.GRAMMAR_KIT,
-                                    String.format("%s generated (%s)", file.getName(), StringUtil.formatFileSize(written)),
-                                    "to " + genDir + (duration == null ? "" : " in " + duration),
-                                    NotificationType.INFORMATION
-                                ),
-                                project
-                            );
-                        }
-                        catch (ProcessCanceledException ignored) {
-                        }
-                        catch (Exception ex) {
-                            Notifications.Bus.notify(
-                                new Notification(
-                                    BnfNotificationGroup.GRAMMAR_KIT,
-                                    file.getName() + " generation failed",
-                                    ExceptionUtil.getMessage(ex),
-                                    NotificationType.ERROR
-                                ),
-                                project
-                            );
-                            LOG.warn(ex);
-                        }
-                    }
-                }
+    @Nullable
+    private static GenerationResult generate(
+        @Nonnull BnfFile file,
+        @Nullable VirtualFile target,
+        @Nonnull Set<GenerateTarget> generateTargets,
+        @Nonnull ProgressIndicator indicator
+    ) {
+        if (target == null) {
+            return null;
+        }
+        File genDir = new File(VirtualFileUtil.virtualToIoFile(target).getAbsolutePath());
+        long time = System.currentTimeMillis();
+        try {
+            indicator.checkCanceled();
+            String sourcePath =
+                FileUtil.toSystemDependentName(PathUtil.getCanonicalPath(file.getVirtualFile().getParent().getPath()));
+            // restarted after a write action instead of blocking it, the generator is created anew on every attempt
+            ParserGenerator generator = ReadAction.nonBlocking(() -> {
+                ParserGenerator g = new ParserGenerator(file, sourcePath, genDir.getPath(), "");
+                g.generate(generateTargets);
+                return g;
+            }).executeSynchronously();
+            if (Options.GEN_PROFILE.get()) {
+                LOG_GROUP.createNotification(generator.getProfile().toReport(), NotificationType.INFORMATION).notify(file.getProject());
+            }
+            long written = 0;
+            for (File f : generator.getWrittenFiles()) {
+                written += f.length();
+            }
+            return new GenerationResult(
+                file.getName(),
+                target,
+                genDir,
+                generator.getWrittenFiles().size(),
+                written,
+                generator.getSkippedFiles().size(),
+                System.currentTimeMillis() - time,
+                null
+            );
+        }
+        catch (ProcessCanceledException ignored) {
+            return null;
+        }
+        catch (Exception ex) {
+            LOG.warn(ex);
+            return new GenerationResult(file.getName(), target, genDir, 0, 0, 0, System.currentTimeMillis() - time, ex);
+        }
+    }
+
+    /**
+     * A single grammar is reported on its own, a batch gets one summary listing every grammar.
+     */
+    private static void reportResults(@Nonnull Project project, @Nonnull List<GenerationResult> results, long totalMillis) {
+        if (results.size() == 1) {
+            GenerationResult result = results.get(0);
+            String duration = result.millis() < 1000 ? null : StringUtil.formatDuration(result.millis());
+            Notifications.Bus.notify(
+                result.error() != null
+                    ? new Notification(
+                        BnfNotificationGroup.GRAMMAR_KIT,
+                        result.fileName() + " generation failed",
+                        ExceptionUtil.getMessage(result.error()),
+                        NotificationType.ERROR
+                    )
+                    : new Notification(
+                        BnfNotificationGroup.GRAMMAR_KIT,
+                        String.format(
+                            "%s generated (%d files, %s; %d unchanged)",
+                            result.fileName(),
+                            result.filesCount(),
+                            StringUtil.formatFileSize(result.written()),
+                            result.skipped()
+                        ),
+                        "to " + result.genDir() + (duration == null ? "" : " in " + duration),
+                        NotificationType.INFORMATION
+                    ),
+                project
+            );
+            return;
+        }
+        if (results.isEmpty()) {
+            return;
+        }
+        int filesCount = 0;
+        int skipped = 0;
+        long written = 0;
+        BatchRunner.Report report = new BatchRunner.Report();
+        for (GenerationResult result : results) {
+            filesCount += result.filesCount();
+            skipped += result.skipped();
+            written += result.written();
+            if (result.error() != null) {
+                report.addFailed(result.fileName(), result.error());
+            }
+            else {
+                report.addDone(
+                    result.fileName(),
+                    String.format("%d files, %d unchanged", result.filesCount(), result.skipped()),
+                    result.millis()
+                );
             }
+        }
+        String summary = String.format(
+            "%d grammars: %d files generated (%s), %d files unchanged",
+            results.size(),
+            filesCount,
+            StringUtil.formatFileSize(written),
+            skipped
         );
+        Notifications.Bus.notify(
+            new Notification(
+                BnfNotificationGroup.GRAMMAR_KIT,
+                report.getTitle(summary, totalMillis),
+                report.getDetails(),
+                report.hasFailures() ? NotificationType.ERROR : NotificationType.INFORMATION
+            ),
+            project
+        );
+    }
+
+    private record GenerationResult(
+        String fileName,
+        VirtualFile target,
+        File genDir,
+        int filesCount,
+        long written,
+        int skipped,
+        long millis,
+        @Nullable Exception error
+    ) {
     }
 }
@@ -0,0 +1,96 @@
+package org.intellij.grammar.impl.inspection;
+
+import consulo.annotation.access.RequiredReadAction;
+import consulo.annotation.component.ExtensionImpl;
+import consulo.devkit.grammarKit.localize.BnfLocalize;
+import consulo.language.editor.inspection.LocalInspectionTool;
+import consulo.language.editor.inspection.LocalInspectionToolSession;
+import consulo.language.editor.inspection.ProblemsHolder;
+import consulo.language.editor.rawHighlight.HighlightDisplayLevel;
+import consulo.language.psi.PsiElementVisitor;
+import consulo.language.psi.PsiFile;
+import consulo.language.psi.util.PsiTreeUtil;
+import consulo.localize.LocalizeValue;
+import jakarta.annotation.Nonnull;
+import org.intellij.grammar.analysis.BnfExpressionIndex;
+import org.intellij.grammar.psi.BnfExpression;
+import org.intellij.grammar.psi.BnfFile;
+import org.intellij.grammar.psi.BnfRule;
+import org.intellij.grammar.psi.impl.GrammarUtil;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reports compound expressions that are repeated verbatim in several rules
+ * and are candidates for an extracted rule.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+@ExtensionImpl
+public class BnfDuplicateExpressionInspection extends LocalInspectionTool {
+    @Nonnull
+    @Override
+    public LocalizeValue getGroupDisplayName() {
+        return BnfLocalize.inspectionsGroupName();
+    }
+
+    @Nonnull
+    @Override
+    public LocalizeValue getDisplayName() {
+        return BnfLocalize.duplicateExpressionInspectionDisplayName();
+    }
+
+    @Nonnull
+    @Override
+    public String getShortName() {
+        return "BnfDuplicateExpressionInspection";
+    }
+
+    @Nonnull
+    @Override
+    public HighlightDisplayLevel getDefaultLevel() {
+        return HighlightDisplayLevel.WEAK_WARNING;
+    }
+
+    @Override
+    public boolean isEnabledByDefault() {
+        return false;
+    }
+
+    @Nonnull
+    @Override
+    public PsiElementVisitor buildVisitor(@Nonnull ProblemsHolder holder, boolean isOnTheFly, @Nonnull LocalInspectionToolSession session, @Nonnull Object state) {
+        return new PsiElementVisitor() {
+            @Override
+            @RequiredReadAction
+            public void visitFile(PsiFile file) {
+                if (file instanceof BnfFile bnfFile) {
+                    checkFile(bnfFile, holder);
+                }
+            }
+        };
+    }
+
+    @RequiredReadAction
+    private static void checkFile(BnfFile file, ProblemsHolder holder) {
+        for (List<BnfExpression> group : BnfExpressionIndex.getInstance(file).getDuplicatesAcrossRules()) {
+            Set<BnfRule> rules = new HashSet<>();
+            for (BnfExpression expression : group) {
+                if (!GrammarUtil.isInAttributesReference(expression)) {
+                    rules.add(PsiTreeUtil.getParentOfType(expression, BnfRule.class));
+                }
+            }
+            for (BnfExpression expression : group) {
+                if (GrammarUtil.isInAttributesReference(expression)) {
+                    continue;
+                }
+                holder.newProblem(BnfLocalize.duplicateExpressionInspectionMessage(rules.size()))
+                    .range(expression)
+                    .create();
+            }
+        }
+    }
+}
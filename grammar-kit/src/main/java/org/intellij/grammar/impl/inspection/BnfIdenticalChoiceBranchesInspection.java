@@ -26,14 +26,13 @@ import consulo.language.editor.rawHighlight.HighlightDisplayLevel;
 import consulo.language.psi.PsiElementVisitor;
 import consulo.localize.LocalizeValue;
 import jakarta.annotation.Nonnull;
+import org.intellij.grammar.analysis.BnfExpressionIndex;
 import org.intellij.grammar.psi.BnfChoice;
 import org.intellij.grammar.psi.BnfExpression;
+import org.intellij.grammar.psi.BnfFile;
 import org.intellij.grammar.psi.BnfVisitor;
-import org.intellij.grammar.psi.impl.GrammarUtil;
 
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 /**
  * @author Vadim Romansky
@@ -96,16 +95,19 @@ public class BnfIdenticalChoiceBranchesInspection extends LocalInspectionTool {
         };
     }
 
+    @RequiredReadAction
     private static void checkChoice(BnfChoice choice, Set<BnfExpression> set) {
         List<BnfExpression> list = choice.getExpressionList();
-        for (int i = 0, n = list.size(); i < n; i++) {
-            BnfExpression e1 = list.get(i);
-            for (int j = i + 1; j < n; j++) {
-                BnfExpression e2 = list.get(j);
-                if (e1 != e2 && GrammarUtil.equalsElement(e1, e2)) {
-                    set.add(e1);
-                    set.add(e2);
-                }
+        if (list.size() < 2 || !(choice.getContainingFile() instanceof BnfFile file)) {
+            return;
+        }
+        BnfExpressionIndex index = BnfExpressionIndex.getInstance(file);
+        Map<Integer, BnfExpression> firstById = new HashMap<>();
+        for (BnfExpression e : list) {
+            BnfExpression first = firstById.putIfAbsent(index.getStructureId(e), e);
+            if (first != null) {
+                set.add(first);
+                set.add(e);
             }
         }
     }
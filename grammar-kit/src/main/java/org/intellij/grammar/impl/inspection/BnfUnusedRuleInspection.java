@@ -35,14 +35,11 @@ import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import org.intellij.grammar.KnownAttribute;
 import org.intellij.grammar.generator.ParserGeneratorUtil;
+import org.intellij.grammar.generator.RuleGraphHelper;
 import org.intellij.grammar.psi.*;
 import org.intellij.grammar.psi.impl.BnfReferenceImpl;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
-import java.util.function.Predicate;
+import java.util.*;
 
 import static consulo.util.lang.function.Condition.NOT_NULL;
 import static org.intellij.grammar.KnownAttribute.RECOVER_WHILE;
@@ -109,12 +106,7 @@ public class BnfUnusedRuleInspection extends LocalInspectionTool {
             return;
         }
 
-        //noinspection LimitedScopeInnerClass,EmptyClass
-        abstract class Cond<T> extends JBIterable.Stateful<Cond> implements Predicate<T> {
-        }
-
         Set<BnfRule> inExpr = new HashSet<>();
-        Set<BnfRule> inParsing = new HashSet<>();
         Set<BnfRule> inSuppressed = new HashSet<>();
         Map<BnfRule, String> inAttrs = new HashMap<>();
 
@@ -122,25 +114,7 @@ public class BnfUnusedRuleInspection extends LocalInspectionTool {
 
         rules.filter(r -> SuppressionUtil.inspectionResultSuppressed(r, this)).addAllTo(inSuppressed);
 
-        inParsing.add(rules.first()); // add root rule
-        for (int size = 0, prev = -1; size != prev; prev = size, size = inParsing.size()) {
-            bnfTraverserNoAttrs(myFile).expand(new Cond<>() {
-                @Override
-                public boolean test(PsiElement element) {
-                    if (element instanceof BnfRule rule) {
-                        // add recovery rules to calculation
-                        BnfAttr recoverAttr = findAttribute(myFile.getVersion(), rule, KnownAttribute.RECOVER_WHILE);
-                        test(recoverAttr == null ? null : recoverAttr.getExpression());
-                        return inParsing.contains(rule) || inSuppressed.contains(rule);
-                    }
-                    else if (element instanceof BnfReferenceOrToken referenceOrToken) {
-                        ContainerUtil.addIfNotNull(inParsing, referenceOrToken.resolveRule());
-                        return false;
-                    }
-                    return true;
-                }
-            }).traverse().size();
-        }
+        Set<BnfRule> inParsing = collectRulesInParsing(myFile, rules.first(), inSuppressed);
 
         for (BnfAttr attr : bnfTraverser(myFile).filter(BnfAttr.class)) {
             BnfRule target = resolveRule(attr.getExpression());
@@ -178,6 +152,40 @@ public class BnfUnusedRuleInspection extends LocalInspectionTool {
         }
     }
 
+    /**
+     * Rules reachable from the root rule, the suppressed rules and the recovery rules
+     * over the cached {@link RuleGraphHelper} references.
+     */
+    @Nonnull
+    @RequiredReadAction
+    private static Set<BnfRule> collectRulesInParsing(@Nonnull BnfFile file, @Nonnull BnfRule root, @Nonnull Set<BnfRule> suppressed) {
+        RuleGraphHelper helper = RuleGraphHelper.getCached(file);
+        Set<BnfRule> result = new HashSet<>();
+        Deque<BnfRule> queue = new ArrayDeque<>();
+        result.add(root);
+        queue.add(root);
+        for (BnfRule rule : file.getRules()) {
+            if (suppressed.contains(rule)) {
+                queue.add(rule);
+            }
+            BnfAttr recoverAttr = findAttribute(file.getVersion(), rule, KnownAttribute.RECOVER_WHILE);
+            BnfRule recoverRule = recoverAttr != null && recoverAttr.getExpression() instanceof BnfReferenceOrToken ref
+                ? ref.resolveRule()
+                : null;
+            if (recoverRule != null && result.add(recoverRule)) {
+                queue.add(recoverRule);
+            }
+        }
+        for (BnfRule rule = queue.poll(); rule != null; rule = queue.poll()) {
+            for (BnfRule target : helper.getReferencedRules(rule)) {
+                if (result.add(target)) {
+                    queue.add(target);
+                }
+            }
+        }
+        return result;
+    }
+
     @Nullable
     @RequiredReadAction
     private static BnfRule resolveRule(@Nullable PsiElement o) {
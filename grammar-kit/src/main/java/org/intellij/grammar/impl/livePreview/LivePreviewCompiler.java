@@ -0,0 +1,412 @@
+package org.intellij.grammar.impl.livePreview;
+
+import consulo.annotation.access.RequiredReadAction;
+import consulo.application.Application;
+import consulo.application.ReadAction;
+import consulo.application.util.CachedValueProvider;
+import consulo.component.ProcessCanceledException;
+import consulo.devkit.grammarKit.generator.GenerateTarget;
+import consulo.language.ast.IElementType;
+import consulo.language.impl.parser.GeneratedParserUtilBase;
+import consulo.language.parser.PsiBuilder;
+import consulo.language.parser.PsiParser;
+import consulo.language.psi.util.LanguageCachedValueUtil;
+import consulo.logging.Logger;
+import consulo.util.dataholder.UserDataHolder;
+import consulo.util.io.FileUtil;
+import consulo.util.lang.StringUtil;
+import consulo.virtualFileSystem.VirtualFile;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.intellij.grammar.KnownAttribute;
+import org.intellij.grammar.generator.GenOptions;
+import org.intellij.grammar.generator.ParserGenerator;
+import org.intellij.grammar.generator.ParserGeneratorUtil;
+import org.intellij.grammar.psi.BnfFile;
+import org.intellij.grammar.psi.BnfRule;
+
+import javax.tools.*;
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.util.*;
+
+import static org.intellij.grammar.generator.ParserGeneratorUtil.getRootAttribute;
+
+/**
+ * Compiles a grammar into a regular generated parser to be used by the live preview instead of
+ * the interpreting {@link LivePreviewParser}.
+ * <p>
+ * Parser classes are rendered by {@link ParserGenerator}, compiled in memory on a pooled thread and bound to
+ * the live preview token and rule element types via a synthetic element type holder.
+ * The interpreter parses the preview until the compiled parser is ready.
+ * Grammars which cannot be compiled this way (custom parser utility classes, token sets, missing compiler)
+ * are reported to the log once per grammar modification and handled by the interpreter.
+ *
+ * @author agent
+ * @since 2026-10-18
+ * @see org.intellij.grammar.config.Options#LIVE_PREVIEW_COMPILE
+ */
+public class LivePreviewCompiler {
+    private static final Logger LOG = Logger.getInstance(LivePreviewCompiler.class);
+
+    private static final String OUTPUT_ROOT = "live-preview";
+
+    private LivePreviewCompiler() {
+    }
+
+    /**
+     * Returns a fresh instance of the compiled parser or {@code null} if the grammar is not compiled yet or cannot be compiled.
+     * Compiled classes are reused until the grammar or the lexer tokens change, the compilation is started on the first request.
+     */
+    @Nullable
+    @RequiredReadAction
+    public static PsiParser getCompiledParser(
+        @Nonnull BnfFile file,
+        @Nonnull LivePreviewLanguage language,
+        @Nonnull Collection<LivePreviewLexer.Token> tokens
+    ) {
+        CompiledGrammar grammar = LanguageCachedValueUtil.getCachedValue(
+            file,
+            () -> CachedValueProvider.Result.create(new CompiledGrammar(), file)
+        );
+        Class<?> parserClass;
+        synchronized (grammar) {
+            List<LivePreviewLexer.Token> tokenList = new ArrayList<>(tokens);
+            if (grammar.language != language || !tokenList.equals(grammar.tokens)) {
+                grammar.language = language;
+                grammar.tokens = tokenList;
+                grammar.parserClass = null;
+                scheduleCompile(file, grammar, language, tokenList);
+            }
+            parserClass = grammar.parserClass;
+        }
+        if (parserClass == null) {
+            return null;
+        }
+        try {
+            return (PsiParser)parserClass.getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException | LinkageError e) {
+            LOG.warn("Failed to instantiate compiled live preview parser " + parserClass.getName(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Invoked from the static initializer of the synthetic element type holder
+     */
+    @Nonnull
+    public static IElementType elementType(@Nonnull Class<?> holderClass, @Nonnull String name) {
+        return ((CompiledClassLoader)holderClass.getClassLoader()).myElementTypes.get(name);
+    }
+
+    private static void scheduleCompile(
+        @Nonnull BnfFile file,
+        @Nonnull CompiledGrammar grammar,
+        @Nonnull LivePreviewLanguage language,
+        @Nonnull List<LivePreviewLexer.Token> tokens
+    ) {
+        Application.get().executeOnPooledThread(() -> {
+            Class<?> parserClass = compile(file, language, tokens);
+            synchronized (grammar) {
+                // the tokens may have changed in the meantime, then a newer compilation is already scheduled
+                if (grammar.language == language && tokens.equals(grammar.tokens)) {
+                    grammar.parserClass = parserClass;
+                }
+            }
+        });
+    }
+
+    @Nullable
+    private static Class<?> compile(
+        @Nonnull BnfFile file,
+        @Nonnull LivePreviewLanguage language,
+        @Nonnull List<LivePreviewLexer.Token> tokens
+    ) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            LOG.warn("Java compiler is not available, the live preview falls back to the interpreter");
+            return null;
+        }
+        RenderedGrammar rendered;
+        try {
+            // restarted after a write action instead of blocking it, javac runs outside of the read action
+            rendered = ReadAction.nonBlocking(() -> file.isValid() ? render(file, language, tokens) : null).executeSynchronously();
+        }
+        catch (ProcessCanceledException e) {
+            return null;
+        }
+        if (rendered == null) {
+            return null;
+        }
+
+        Map<String, byte[]> classes = compileSources(compiler, file, rendered.sources());
+        if (classes == null) {
+            return null;
+        }
+        try {
+            return Class.forName(rendered.parserClass(), true, new CompiledClassLoader(classes, rendered.elementTypes()));
+        }
+        catch (ClassNotFoundException | LinkageError e) {
+            LOG.warn("Failed to load compiled live preview parser " + rendered.parserClass(), e);
+            return null;
+        }
+    }
+
+    @Nullable
+    @RequiredReadAction
+    private static RenderedGrammar render(
+        @Nonnull BnfFile file,
+        @Nonnull LivePreviewLanguage language,
+        @Nonnull List<LivePreviewLexer.Token> tokens
+    ) {
+        BnfRule root = file.getRules().isEmpty() ? null : file.getRules().get(0);
+        if (root == null) {
+            return null;
+        }
+        String version = file.getVersion();
+        GenOptions options = new GenOptions(file);
+        if (options.generateTokenSets) {
+            LOG.debug("Token sets are not supported by the compiled live preview: " + file.getName());
+            return null;
+        }
+
+        Map<String, String> sources = new LinkedHashMap<>();
+        Set<String> tokenTypes;
+        try {
+            tokenTypes = renderParser(file, sources);
+        }
+        catch (IOException e) {
+            LOG.warn("Failed to render the live preview parser for " + file.getName(), e);
+            return null;
+        }
+        String holderClass = getRootAttribute(version, file, KnownAttribute.ELEMENT_TYPE_HOLDER_CLASS);
+        Map<String, IElementType> elementTypes = collectElementTypes(file, language, options, tokens, tokenTypes);
+        sources.put(holderClass, renderTypeHolder(holderClass, elementTypes.keySet()));
+        String parserClass = ParserGeneratorUtil.getAttribute(version, root, KnownAttribute.PARSER_CLASS);
+        return new RenderedGrammar(sources, elementTypes, parserClass);
+    }
+
+    /**
+     * The generator never writes there, yet it checks the existing files when unchanged files are skipped,
+     * so each grammar gets its own directory instead of one relative to the working directory of the IDE
+     */
+    @Nonnull
+    private static File getOutputRoot(@Nonnull BnfFile file) {
+        VirtualFile virtualFile = file.getVirtualFile();
+        String path = virtualFile == null ? file.getName() : virtualFile.getPath();
+        String name = FileUtil.sanitizeFileName(file.getName()) + "_" + Integer.toHexString(path.hashCode());
+        return new File(new File(FileUtil.getTempDirectory(), OUTPUT_ROOT), name);
+    }
+
+    @Nonnull
+    @RequiredReadAction
+    private static Set<String> renderParser(@Nonnull BnfFile file, @Nonnull Map<String, String> sources) throws IOException {
+        File outputRoot = getOutputRoot(file);
+        Map<File, StringWriter> output = new LinkedHashMap<>();
+        VirtualFile virtualFile = file.getVirtualFile();
+        VirtualFile sourceDir = virtualFile == null ? null : virtualFile.getParent();
+        ParserGenerator generator = new ParserGenerator(file, sourceDir == null ? "" : sourceDir.getPath(), outputRoot.getPath(), "") {
+            @Override
+            protected PrintWriter openOutputInner(File file) {
+                StringWriter writer = new StringWriter();
+                output.put(file, writer);
+                return new PrintWriter(writer);
+            }
+        };
+        generator.generateParser(EnumSet.of(GenerateTarget.Impl));
+        String rootPath = outputRoot.getPath() + File.separator;
+        for (Map.Entry<File, StringWriter> entry : output.entrySet()) {
+            String path = StringUtil.trimEnd(StringUtil.trimStart(entry.getKey().getPath(), rootPath), ".java");
+            sources.put(path.replace(File.separatorChar, '.'), entry.getValue().toString());
+        }
+        return generator.getReferencedTokenTypes();
+    }
+
+    @Nonnull
+    @RequiredReadAction
+    private static Map<String, IElementType> collectElementTypes(
+        @Nonnull BnfFile file,
+        @Nonnull LivePreviewLanguage language,
+        @Nonnull GenOptions options,
+        @Nonnull List<LivePreviewLexer.Token> tokens,
+        @Nonnull Set<String> tokenTypes
+    ) {
+        Map<String, IElementType> lexerTypes = new HashMap<>();
+        for (LivePreviewLexer.Token token : tokens) {
+            lexerTypes.put(token.constantName, token.tokenType);
+            lexerTypes.putIfAbsent(StringUtil.toUpperCase(token.constantName), token.tokenType);
+        }
+        Map<String, IElementType> result = new LinkedHashMap<>();
+        for (BnfRule rule : file.getRules()) {
+            String elementType = ParserGeneratorUtil.getElementType(file.getVersion(), rule, options.generateElementCase);
+            if (StringUtil.isNotEmpty(elementType) && !result.containsKey(elementType)) {
+                result.put(elementType, new LivePreviewElementType.RuleType(elementType, rule, language));
+            }
+        }
+        for (String tokenType : tokenTypes) {
+            if (result.containsKey(tokenType)) {
+                continue;
+            }
+            IElementType type = lexerTypes.get(tokenType);
+            if (type == null) {
+                type = lexerTypes.get(StringUtil.toUpperCase(tokenType));
+            }
+            // tokens without a pattern are never produced by the lexer, same as in the interpreter
+            result.put(tokenType, type != null ? type : new LivePreviewElementType.TokenType(null, tokenType, language));
+        }
+        return result;
+    }
+
+    @Nonnull
+    private static String renderTypeHolder(@Nonnull String holderClass, @Nonnull Collection<String> constants) {
+        String packageName = StringUtil.getPackageName(holderClass);
+        String shortName = StringUtil.getShortName(holderClass);
+        StringBuilder sb = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+        sb.append("public interface ").append(shortName).append(" {\n");
+        for (String constant : constants) {
+            sb.append("  ").append(IElementType.class.getName()).append(' ').append(constant)
+                .append(" = ").append(LivePreviewCompiler.class.getName()).append(".elementType(")
+                .append(shortName).append(".class, \"").append(constant).append("\");\n");
+        }
+        return sb.append("}\n").toString();
+    }
+
+    @Nullable
+    private static Map<String, byte[]> compileSources(
+        @Nonnull JavaCompiler compiler,
+        @Nonnull BnfFile file,
+        @Nonnull Map<String, String> sources
+    ) {
+        List<JavaFileObject> units = new ArrayList<>();
+        for (Map.Entry<String, String> entry : sources.entrySet()) {
+            units.add(new SourceObject(entry.getKey(), entry.getValue()));
+        }
+        Set<String> classPath = new LinkedHashSet<>();
+        for (Class<?> aClass : Arrays.asList(
+            GeneratedParserUtilBase.class,
+            PsiBuilder.class,
+            IElementType.class,
+            UserDataHolder.class,
+            LivePreviewCompiler.class
+        )) {
+            addClassRoot(classPath, aClass);
+        }
+        List<String> options = Arrays.asList(
+            "-proc:none", "-g:none", "-nowarn",
+            "-classpath", StringUtil.join(classPath, File.pathSeparator)
+        );
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StandardJavaFileManager standardManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8);
+        try (ClassOutputManager manager = new ClassOutputManager(standardManager)) {
+            if (!compiler.getTask(null, manager, diagnostics, options, null, units).call()) {
+                LOG.debug("Grammar " + file.getName() + " cannot be compiled for the live preview: " + diagnostics.getDiagnostics());
+                return null;
+            }
+            return manager.getClasses();
+        }
+        catch (IOException | RuntimeException e) {
+            LOG.warn("Failed to compile the live preview parser for " + file.getName(), e);
+            return null;
+        }
+    }
+
+    private static void addClassRoot(@Nonnull Set<String> classPath, @Nonnull Class<?> aClass) {
+        CodeSource source = aClass.getProtectionDomain().getCodeSource();
+        if (source == null || source.getLocation() == null) {
+            return;
+        }
+        try {
+            classPath.add(new File(source.getLocation().toURI()).getPath());
+        }
+        catch (Exception e) {
+            LOG.debug("Unsupported class root: " + source.getLocation(), e);
+        }
+    }
+
+    private record RenderedGrammar(Map<String, String> sources, Map<String, IElementType> elementTypes, String parserClass) {
+    }
+
+    private static class CompiledGrammar {
+        LivePreviewLanguage language;
+        List<LivePreviewLexer.Token> tokens;
+        Class<?> parserClass;
+    }
+
+    /**
+     * A loader per compilation, so classes of stale parsers are collected together with the grammar
+     */
+    private static class CompiledClassLoader extends ClassLoader {
+        private final Map<String, byte[]> myClasses;
+        private final Map<String, IElementType> myElementTypes;
+
+        CompiledClassLoader(@Nonnull Map<String, byte[]> classes, @Nonnull Map<String, IElementType> elementTypes) {
+            super(LivePreviewCompiler.class.getClassLoader());
+            myClasses = classes;
+            myElementTypes = elementTypes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            byte[] bytes = myClasses.get(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+    private static class SourceObject extends SimpleJavaFileObject {
+        private final String myText;
+
+        SourceObject(@Nonnull String className, @Nonnull String text) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            myText = text;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return myText;
+        }
+    }
+
+    private static class ClassObject extends SimpleJavaFileObject {
+        private final ByteArrayOutputStream myBytes = new ByteArrayOutputStream();
+
+        ClassObject(@Nonnull String className) {
+            super(URI.create("bytes:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return myBytes;
+        }
+    }
+
+    private static class ClassOutputManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        private final Map<String, ClassObject> myOutput = new LinkedHashMap<>();
+
+        ClassOutputManager(@Nonnull StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Nonnull
+        Map<String, byte[]> getClasses() {
+            Map<String, byte[]> result = new HashMap<>();
+            myOutput.forEach((name, object) -> result.put(name, object.myBytes.toByteArray()));
+            return result;
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+            ClassObject object = new ClassObject(className);
+            myOutput.put(className, object);
+            return object;
+        }
+    }
+}
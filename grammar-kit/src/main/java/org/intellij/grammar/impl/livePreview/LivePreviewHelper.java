@@ -36,13 +36,18 @@ import consulo.language.parser.ParserDefinition;
 import consulo.language.parser.PsiBuilder;
 import consulo.language.parser.PsiBuilderFactory;
 import consulo.language.parser.PsiParser;
+import consulo.language.psi.PsiComment;
 import consulo.language.psi.PsiDocumentManager;
+import consulo.language.psi.PsiElement;
 import consulo.language.psi.PsiFile;
 import consulo.language.psi.PsiManager;
+import consulo.language.psi.PsiWhiteSpace;
+import consulo.language.psi.SyntaxTraverser;
 import consulo.language.version.LanguageVersionUtil;
 import consulo.project.Project;
 import consulo.ui.ex.awt.util.Alarm;
 import consulo.ui.ex.awt.util.SingleAlarm;
+import consulo.util.dataholder.Key;
 import consulo.util.dataholder.NotNullLazyKey;
 import consulo.util.lang.function.PairProcessor;
 import consulo.virtualFileSystem.VirtualFile;
@@ -112,6 +117,8 @@ public class LivePreviewHelper {
         //LanguageParserDefinitions.INSTANCE.removeExplicitExtension(language, LanguageParserDefinitions.INSTANCE.forLanguage(language));
     }
 
+    private static final Key<Integer> GRAMMAR_FINGERPRINT_KEY = Key.create("LIVE_PREVIEW_GRAMMAR_FINGERPRINT");
+
     private static final NotNullLazyKey<SingleAlarm, Project>
         LIVE_PREVIEW_ALARM =
         NotNullLazyKey.create("LIVE_PREVIEW_ALARM", new Function<Project, SingleAlarm>() {
@@ -173,12 +180,31 @@ public class LivePreviewHelper {
         for (VirtualFile file : fileEditorManager.getOpenFiles()) {
             PsiFile psiFile = psiManager.findFile(file);
             Language language = psiFile == null ? null : psiFile.getLanguage();
-            if (!(language instanceof LivePreviewLanguage)) {
+            if (!(language instanceof LivePreviewLanguage livePreviewLanguage)) {
+                continue;
+            }
+            // comment and formatting edits in the grammar do not change the preview
+            BnfFile grammar = livePreviewLanguage.getGrammar(project);
+            Integer fingerprint = grammar == null ? null : calcGrammarFingerprint(grammar);
+            if (fingerprint != null && fingerprint.equals(file.getUserData(GRAMMAR_FINGERPRINT_KEY))) {
                 continue;
             }
+            file.putUserData(GRAMMAR_FINGERPRINT_KEY, fingerprint);
             files.add(file);
         }
-        FileContentUtil.reparseFiles(project, files, false);
+        if (!files.isEmpty()) {
+            FileContentUtil.reparseFiles(project, files, false);
+        }
+    }
+
+    @RequiredReadAction
+    private static int calcGrammarFingerprint(@Nonnull BnfFile grammar) {
+        int hash = 0;
+        for (PsiElement leaf : SyntaxTraverser.psiTraverser(grammar)
+            .filter(o -> o.getFirstChild() == null && !(o instanceof PsiWhiteSpace) && !(o instanceof PsiComment))) {
+            hash = 31 * hash + leaf.getText().hashCode();
+        }
+        return hash;
     }
 
     @RequiredReadAction
@@ -188,13 +214,16 @@ public class LivePreviewHelper {
         LivePreviewLanguage language,
         final PairProcessor<BnfExpression, Boolean> processor
     ) {
-        Lexer lexer = new LivePreviewLexer(project, language);
+        Document document = previewEditor.getDocument();
+        VirtualFile previewFile = FileDocumentManager.getInstance().getFile(document);
+        // share the tokens with the highlighter of the preview file
+        Lexer lexer = new LivePreviewLexer(project, language, previewFile != null ? previewFile : document);
         final ParserDefinition parserDefinition = ParserDefinition.forLanguage(language);
         final PsiBuilder builder = PsiBuilderFactory.getInstance().createBuilder(
             parserDefinition,
             lexer,
             LanguageVersionUtil.findDefaultVersion(language),
-            previewEditor.getDocument().getText()
+            document.getText()
         );
         final int caretOffset = previewEditor.getCaretModel().getOffset();
         final PsiParser parser = new LivePreviewParser(project, language) {
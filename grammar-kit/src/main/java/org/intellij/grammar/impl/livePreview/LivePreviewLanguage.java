@@ -39,9 +39,7 @@ import org.intellij.grammar.psi.BnfFile;
 import jakarta.annotation.Nonnull;
 
 import java.lang.ref.SoftReference;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static consulo.internal.org.objectweb.asm.Opcodes.*;
@@ -52,6 +50,10 @@ import static consulo.internal.org.objectweb.asm.Opcodes.*;
 public class LivePreviewLanguage extends Language {
     private final VirtualFilePointer myFilePointer;
     private final SoftReference<BnfFile> myBnfFile;
+    /**
+     * Tokens of the last whole text lexed per preview file or document, the parser and the highlighter of one file share them
+     */
+    private final Map<Object, LivePreviewLexer.LexedText> myLexedTexts = Collections.synchronizedMap(new WeakHashMap<>());
     public static final Language BASE_INSTANCE = new Language("BNF_LP") {
         @Override
         public LocalizeValue getDisplayName() {
@@ -93,6 +95,18 @@ public class LivePreviewLanguage extends Language {
         }
     }
 
+    /**
+     * Tokens of the last whole text of the preview file lexed by {@link LivePreviewLexer}, used to relex only the edited region
+     */
+    @Nullable
+    LivePreviewLexer.LexedText getLexedText(@Nonnull Object key) {
+        return myLexedTexts.get(key);
+    }
+
+    void putLexedText(@Nonnull Object key, @Nonnull LivePreviewLexer.LexedText lexedText) {
+        myLexedTexts.put(key, lexedText);
+    }
+
     @Nullable
     @RequiredReadAction
     public BnfFile getGrammar(@Nullable Project project) {
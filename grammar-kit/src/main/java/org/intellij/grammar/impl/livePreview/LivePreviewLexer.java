@@ -47,16 +47,34 @@ public class LivePreviewLexer extends LexerBase {
     private int myTokenEnd;
     private IElementType myTokenType;
 
+    private final LivePreviewLanguage myLanguage;
+    @Nullable
+    private final Object myCacheKey;
     private final Token[] myTokens;
+    private final TokenTable myTable;
     private Matcher[] myMatchers;
+    private ScanTrackingSequence myScanned;
+    private int myScanEnd;
+    private LexedText myLexedText;
+    private int myIndex;
 
     public LivePreviewLexer(Project project, final LivePreviewLanguage language) {
+        this(project, language, null);
+    }
+
+    /**
+     * @param cacheKey preview file or document whose tokens are kept to relex only the edited region of its next text,
+     *                 {@code null} to lex every text from scratch
+     */
+    public LivePreviewLexer(Project project, final LivePreviewLanguage language, @Nullable Object cacheKey) {
+        myLanguage = language;
+        myCacheKey = cacheKey;
         final BnfFile bnfFile = language.getGrammar(project);
 
-        myTokens = bnfFile == null ? new Token[0] : LanguageCachedValueUtil.getCachedValue(bnfFile, new CachedValueProvider<Token[]>() {
+        myTable = bnfFile == null ? TokenTable.EMPTY : LanguageCachedValueUtil.getCachedValue(bnfFile, new CachedValueProvider<TokenTable>() {
             @Nullable
             @Override
-            public Result<Token[]> compute() {
+            public Result<TokenTable> compute() {
                 Set<String> usedInGrammar = new LinkedHashSet<>();
                 Map<String, String> map = collectTokenPattern2Name(bnfFile, usedInGrammar);
 
@@ -68,9 +86,10 @@ public class LivePreviewLexer extends LexerBase {
 
                     tokens[i++] = new Token(pattern, tokenName, usedInGrammar.contains(tokenName), tokenConstantPrefix, language);
                 }
-                return Result.create(tokens, bnfFile);
+                return Result.create(new TokenTable(tokens), bnfFile);
             }
         });
+        myTokens = myTable.tokens;
     }
 
     @Override
@@ -81,22 +100,123 @@ public class LivePreviewLexer extends LexerBase {
         myTokenEnd = myPosition;
         myTokenType = null;
         myMatchers = new Matcher[myTokens.length];
-        for (int i = 0; i < myMatchers.length; i++) {
-            Pattern pattern = myTokens[i].pattern;
-            if (pattern == null) {
-                continue;
-            }
-            myMatchers[i] = pattern.matcher(buffer);
+        myScanned = null;
+        myLexedText = null;
+        if (myCacheKey != null && startOffset == 0 && endOffset == buffer.length() && initialState == 0) {
+            // the PSI parse and the caret lookup of the preview file lex the whole text, so does the highlighter
+            // when it starts over, all keyed by the preview file they reuse the tokens outside the edited region
+            myLexedText = lexWholeText(buffer.toString());
+            myLanguage.putLexedText(myCacheKey, myLexedText);
+            myMatchers = new Matcher[myTokens.length];
+            myScanned = null;
+            myBuffer = buffer;
+            myEndOffset = endOffset;
+            myIndex = 0;
+            replayToken();
+            return;
+        }
+        nextToken();
+    }
+
+    @Nonnull
+    private LexedText lexWholeText(@Nonnull String text) {
+        LexedText previous = myLanguage.getLexedText(myCacheKey);
+        if (previous == null || previous.table != myTable) {
+            return lexFrom(text, LexedText.EMPTY, 0, 0, 0, 0);
         }
+        if (previous.text.equals(text)) {
+            return previous;
+        }
+        int oldLength = previous.text.length();
+        int prefix = 0;
+        int maxPrefix = Math.min(oldLength, text.length());
+        while (prefix < maxPrefix && previous.text.charAt(prefix) == text.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        int maxSuffix = maxPrefix - prefix;
+        while (suffix < maxSuffix
+            && previous.text.charAt(oldLength - suffix - 1) == text.charAt(text.length() - suffix - 1)) {
+            suffix++;
+        }
+        // restart at the first token whose matchers looked at the changed text, including the text right after the token
+        int index = previous.findFirstScannedPast(prefix);
+        if (index < 0) {
+            // only text no token looked at was changed, i.e. text appended after an untouched end
+            index = previous.count;
+        }
+        return lexFrom(text, previous, index, previous.starts[index], text.length() - suffix, text.length() - oldLength);
+    }
+
+    /**
+     * Copies the first {@code reusedCount} tokens, lexes the text from {@code position} and switches back
+     * to the previous tokens as soon as a token boundary after {@code changeEnd} coincides with a shifted old one.
+     */
+    @Nonnull
+    private LexedText lexFrom(@Nonnull String text, @Nonnull LexedText previous, int reusedCount, int position, int changeEnd, int delta) {
+        int capacity = Math.max(16, previous.count + 16);
+        int[] starts = Arrays.copyOf(previous.starts, capacity + 1);
+        int[] scanEnds = Arrays.copyOf(previous.scanEnds, capacity);
+        IElementType[] types = Arrays.copyOf(previous.types, capacity);
+        int count = reusedCount;
+
+        myScanned = new ScanTrackingSequence(text);
+        myBuffer = myScanned;
+        myEndOffset = text.length();
+        myPosition = position;
         nextToken();
+        while (myTokenType != null) {
+            if (myPosition >= changeEnd && previous.count > 0) {
+                int oldIndex = Arrays.binarySearch(previous.starts, 0, previous.count, myPosition - delta);
+                if (oldIndex >= 0) {
+                    // tokens after the change only looked at the unchanged text after them, shift them as they are
+                    int rest = previous.count - oldIndex;
+                    if (count + rest > types.length) {
+                        starts = Arrays.copyOf(starts, count + rest + 1);
+                        scanEnds = Arrays.copyOf(scanEnds, count + rest);
+                        types = Arrays.copyOf(types, count + rest);
+                    }
+                    for (int i = 0; i < rest; i++) {
+                        starts[count + i] = previous.starts[oldIndex + i] + delta;
+                        scanEnds[count + i] = previous.scanEnds[oldIndex + i] + delta;
+                    }
+                    System.arraycopy(previous.types, oldIndex, types, count, rest);
+                    count += rest;
+                    break;
+                }
+            }
+            if (count == types.length) {
+                starts = Arrays.copyOf(starts, count * 2 + 1);
+                scanEnds = Arrays.copyOf(scanEnds, count * 2);
+                types = Arrays.copyOf(types, count * 2);
+            }
+            starts[count] = myPosition;
+            scanEnds[count] = myScanEnd;
+            types[count++] = myTokenType;
+            myPosition = myTokenEnd;
+            nextToken();
+        }
+        starts[count] = text.length();
+        return new LexedText(myTable, text, starts, scanEnds, types, count);
+    }
+
+    private void replayToken() {
+        LexedText lexed = myLexedText;
+        myPosition = lexed.starts[myIndex];
+        myTokenEnd = myIndex < lexed.count ? lexed.starts[myIndex + 1] : myPosition;
+        myTokenType = myIndex < lexed.count ? lexed.types[myIndex] : null;
     }
 
     private void nextToken() {
         myTokenEnd = myPosition;
+        myScanEnd = myPosition;
         if (myPosition >= myEndOffset) {
             myTokenType = null;
             return;
         }
+        if (myScanned != null) {
+            myScanned.reset(myPosition);
+        }
         if (!findAtOffset(myPosition)) {
             int nextOffset = myPosition;
             while (++nextOffset < myEndOffset) {
@@ -107,17 +227,27 @@ public class LivePreviewLexer extends LexerBase {
             myTokenEnd = nextOffset;
             myTokenType = TokenType.BAD_CHARACTER;
         }
+        if (myScanned != null) {
+            myScanEnd = Math.max(myScanEnd, Math.max(myTokenEnd, myScanned.getScanEnd()));
+        }
     }
 
     private boolean findAtOffset(int position) {
         myTokenEnd = position;
         myTokenType = null;
-        for (int i = 0; i < myMatchers.length; i++) {
-            if (myMatchers[i] == null) {
-                continue;
+        for (int i : myTable.getCandidates(myBuffer.charAt(position))) {
+            Matcher matcher = myMatchers[i];
+            if (matcher == null) {
+                // matchers are created lazily, most tokens never get past the first character check
+                matcher = myMatchers[i] = myTokens[i].pattern.matcher(myBuffer);
+            }
+            matcher.region(position, myEndOffset);
+            boolean found = matcher.lookingAt();
+            if (myScanned != null && matcher.hitEnd()) {
+                // more text at the end could change the result, e.g. close an unterminated string
+                myScanEnd = myEndOffset + 1;
             }
-            Matcher matcher = myMatchers[i].region(position, myEndOffset);
-            if (matcher.lookingAt()) {
+            if (found) {
                 int end = matcher.end();
                 if (end > myTokenEnd) {
                     myTokenEnd = end;
@@ -156,6 +286,11 @@ public class LivePreviewLexer extends LexerBase {
     @Override
     public void advance() {
         if (myTokenType != null) {
+            if (myLexedText != null) {
+                myIndex++;
+                replayToken();
+                return;
+            }
             myPosition = myTokenEnd;
             nextToken();
         }
@@ -176,6 +311,164 @@ public class LivePreviewLexer extends LexerBase {
         return Arrays.asList(myTokens);
     }
 
+    /**
+     * Tokens with a first character dispatch table: for every ASCII character the indices of tokens
+     * that can match text starting with it, in declaration order, so the longest-match rules stay the same.
+     */
+    static class TokenTable {
+        static final TokenTable EMPTY = new TokenTable(new Token[0]);
+
+        private static final int ASCII_SIZE = 128;
+
+        final Token[] tokens;
+        private final int[][] myAsciiCandidates = new int[ASCII_SIZE][];
+        private final int[] myOtherCandidates;
+
+        TokenTable(Token[] tokens) {
+            this.tokens = tokens;
+            List<List<Integer>> ascii = new ArrayList<>(ASCII_SIZE);
+            for (int c = 0; c < ASCII_SIZE; c++) {
+                ascii.add(new ArrayList<>());
+            }
+            List<Integer> other = new ArrayList<>();
+            for (int i = 0; i < tokens.length; i++) {
+                Pattern pattern = tokens[i].pattern;
+                if (pattern == null) {
+                    continue;
+                }
+                for (int c = 0; c < ASCII_SIZE; c++) {
+                    if (canStartWith(pattern, (char)c)) {
+                        ascii.get(c).add(i);
+                    }
+                }
+                // non-ASCII text is not pruned
+                other.add(i);
+            }
+            for (int c = 0; c < ASCII_SIZE; c++) {
+                myAsciiCandidates[c] = ascii.get(c).stream().mapToInt(Integer::intValue).toArray();
+            }
+            myOtherCandidates = other.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        int[] getCandidates(char c) {
+            return c < ASCII_SIZE ? myAsciiCandidates[c] : myOtherCandidates;
+        }
+
+        /**
+         * A pattern that neither matches the single character nor needs more input to decide
+         * cannot match any text starting with that character.
+         */
+        private static boolean canStartWith(@Nonnull Pattern pattern, char c) {
+            Matcher matcher = pattern.matcher(String.valueOf(c));
+            return matcher.lookingAt() || matcher.hitEnd();
+        }
+    }
+
+    /**
+     * Tokens of a fully lexed text: token {@code i} spans {@code [starts[i], starts[i + 1])} and its matchers looked
+     * at the text in {@code [starts[i], scanEnds[i])}, a scan end past the text means a matcher needed more input.
+     */
+    static final class LexedText {
+        static final LexedText EMPTY = new LexedText(null, "", new int[1], new int[0], new IElementType[0], 0);
+
+        final TokenTable table;
+        final String text;
+        final int[] starts;
+        final int[] scanEnds;
+        final IElementType[] types;
+        final int count;
+        /**
+         * {@code maxScanEnds[i]} is the maximum of {@code scanEnds[0..i]}, non-decreasing so it can be searched
+         */
+        private final int[] maxScanEnds;
+
+        LexedText(
+            @Nullable TokenTable table,
+            @Nonnull String text,
+            @Nonnull int[] starts,
+            @Nonnull int[] scanEnds,
+            @Nonnull IElementType[] types,
+            int count
+        ) {
+            this.table = table;
+            this.text = text;
+            this.starts = starts;
+            this.scanEnds = scanEnds;
+            this.types = types;
+            this.count = count;
+            maxScanEnds = new int[count];
+            for (int i = 0, max = 0; i < count; i++) {
+                maxScanEnds[i] = max = Math.max(max, scanEnds[i]);
+            }
+        }
+
+        /**
+         * @return index of the first token whose matchers looked at {@code offset} or past it, {@code -1} if there is none
+         */
+        int findFirstScannedPast(int offset) {
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (maxScanEnds[mid] > offset) {
+                    high = mid;
+                }
+                else {
+                    low = mid + 1;
+                }
+            }
+            return low < count ? low : -1;
+        }
+    }
+
+    /**
+     * Text that remembers the furthest character read since the last {@link #reset}, the matchers read it through {@link #charAt}.
+     */
+    private static final class ScanTrackingSequence implements CharSequence {
+        private final String myText;
+        private int myScanEnd;
+
+        ScanTrackingSequence(@Nonnull String text) {
+            myText = text;
+        }
+
+        void reset(int offset) {
+            myScanEnd = offset;
+        }
+
+        /**
+         * @return offset after the furthest character read
+         */
+        int getScanEnd() {
+            return myScanEnd;
+        }
+
+        @Override
+        public int length() {
+            return myText.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index >= myScanEnd) {
+                myScanEnd = index + 1;
+            }
+            return myText.charAt(index);
+        }
+
+        @Nonnull
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return myText.subSequence(start, end);
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return myText;
+        }
+    }
+
     static class Token {
         final String constantName;
         final Pattern pattern;
@@ -34,6 +34,7 @@ import consulo.util.collection.primitive.objects.ObjectMaps;
 import consulo.util.lang.StringUtil;
 import org.intellij.grammar.KnownAttribute;
 import org.intellij.grammar.analysis.BnfFirstNextAnalyzer;
+import org.intellij.grammar.config.Options;
 import org.intellij.grammar.generator.*;
 import org.intellij.grammar.psi.*;
 import org.intellij.grammar.psi.impl.GrammarUtil;
@@ -66,8 +67,14 @@ public class LivePreviewParser implements PsiParser {
     private String myTokenTypeText;
 
     private final ObjectIntMap<BnfRule> myRuleNumbers = ObjectMaps.newObjectIntHashMap();
-    private BitSet[] myBitSets;
+    private int[] myActiveOffsets;
+
+    private final Map<BnfRule, ExpressionPlan> myRulePlans = new HashMap<>();
+    private final Map<PlanKey, ExpressionPlan> myExpressionPlans = new HashMap<>();
+    private final Map<PlanKey, CallPlan> myCallPlans = new HashMap<>();
     private final String myVersion;
+    // subclasses observe the node calls through generateNodeCall, the plain parser runs the planned calls directly
+    private final boolean myObservesNodeCalls = getClass() != LivePreviewParser.class;
 
     @RequiredReadAction
     public LivePreviewParser(@Nullable Project project, LivePreviewLanguage language) {
@@ -80,6 +87,13 @@ public class LivePreviewParser implements PsiParser {
     @Override
     @RequiredReadAction
     public ASTNode parse(@Nonnull IElementType root, @Nonnull PsiBuilder originalBuilder, @Nonnull LanguageVersion languageVersion) {
+        if (myFile != null && getClass() == LivePreviewParser.class && Options.LIVE_PREVIEW_COMPILE.get()
+            && originalBuilder.getLexer() instanceof LivePreviewLexer lexer) {
+            PsiParser compiled = LivePreviewCompiler.getCompiledParser(myFile, myLanguage, lexer.getTokens());
+            if (compiled != null) {
+                return compiled.parse(root, originalBuilder, languageVersion);
+            }
+        }
         init(originalBuilder);
         PsiBuilder builder = adapt_builder_(root, originalBuilder, this);
         ErrorState.get(builder).altExtendsChecker = this::type_extends_;
@@ -103,6 +117,7 @@ public class LivePreviewParser implements PsiParser {
         return t1 != null && t2 != null ? new BracePair(t1, t2, structural) : null;
     }
 
+    @RequiredReadAction
     private void init(PsiBuilder builder) {
         if (myFile == null) {
             return;
@@ -136,23 +151,31 @@ public class LivePreviewParser implements PsiParser {
         for (BnfRule rule : myFile.getRules()) {
             myRuleNumbers.putInt(rule, count++);
         }
-        myBitSets = new BitSet[builder.getOriginalText().length() + 1];
-        for (int i = 0; i < myBitSets.length; i++) {
-            myBitSets[i] = new BitSet(count);
+        myActiveOffsets = new int[count];
+        Arrays.fill(myActiveOffsets, -1);
+        for (BnfRule rule : myFile.getRules()) {
+            myRulePlans.put(rule, getExpressionPlan(rule, rule.getExpression(), rule.getName()));
         }
     }
 
     @RequiredReadAction
     private boolean rule(PsiBuilder builder, int level, BnfRule rule, Map<String, Parser> externalArguments) {
-        BitSet bitSet = myBitSets[builder.getCurrentOffset()];
-        int ruleNumber = myRuleNumbers.getInt(rule);
-        if (bitSet.get(ruleNumber)) {
-            builder.error("Endless recursion detected for '" + rule.getName() + "'");
+        return rule(builder, level, getRulePlan(rule), myRuleNumbers.getInt(rule), externalArguments);
+    }
+
+    @RequiredReadAction
+    private boolean rule(PsiBuilder builder, int level, ExpressionPlan plan, int ruleNumber, Map<String, Parser> externalArguments) {
+        // a rule frame never sees the builder before its own start offset, so the offsets of nested
+        // activations of a rule only grow and the innermost one is the only one to check
+        int offset = builder.getCurrentOffset();
+        int outerOffset = myActiveOffsets[ruleNumber];
+        if (outerOffset == offset) {
+            builder.error("Endless recursion detected for '" + plan.rule.getName() + "'");
             return false;
         }
-        bitSet.set(ruleNumber);
-        boolean result = expression(builder, level, rule, rule.getExpression(), rule.getName(), externalArguments);
-        bitSet.clear(ruleNumber);
+        myActiveOffsets[ruleNumber] = offset;
+        boolean result = expression(builder, level, plan, externalArguments);
+        myActiveOffsets[ruleNumber] = outerOffset;
         return result;
     }
 
@@ -165,197 +188,85 @@ public class LivePreviewParser implements PsiParser {
         String funcName,
         Map<String, Parser> externalArguments
     ) {
-        boolean isRule = initialNode.getParent() == rule;
-        BnfExpression node = getNonTrivialNode(initialNode);
-
-        IElementType type = getEffectiveType(node);
-
-        boolean firstNonTrivial = node == ParserGeneratorUtil.Rule.firstNotTrivial(rule);
-        boolean isPrivate = !(isRule || firstNonTrivial) || ParserGeneratorUtil.Rule.isPrivate(rule) || myGrammarRoot == rule;
-        boolean isLeft = firstNonTrivial && ParserGeneratorUtil.Rule.isLeft(rule);
-        boolean isLeftInner = isLeft && (isPrivate || ParserGeneratorUtil.Rule.isInner(rule));
-        boolean isBranch = !isPrivate && Rule.isUpper(rule);
-        String recoverWhile = firstNonTrivial ? getAttribute(myVersion, rule, KnownAttribute.RECOVER_WHILE) : null;
-        Map<String, String> hooks =
-            firstNonTrivial ? getAttribute(myVersion, rule, KnownAttribute.HOOKS).asMap(myVersion) : Collections.emptyMap();
-        boolean canCollapse = !isPrivate && (!isLeft || isLeftInner) && firstNonTrivial && myGraphHelper.canCollapse(rule);
-
-        IElementType elementType = !isPrivate ? getRuleElementType(rule) : null;
-
-        boolean isSingleNode =
-            node instanceof BnfReferenceOrToken || node instanceof BnfLiteralExpression || node instanceof BnfExternalExpression;
-
-        List<BnfExpression> children = isSingleNode ? Collections.singletonList(node) : getChildExpressions(node);
-        String frameName =
-            !children.isEmpty() && firstNonTrivial && !Rule.isMeta(rule) ? getRuleDisplayName(myVersion, rule, !isPrivate) : null;
+        return expression(builder, level, getExpressionPlan(rule, initialNode, funcName), externalArguments);
+    }
 
-        if (isSingleNode) {
-            children = Collections.singletonList(node);
-            if (isPrivate && !isLeftInner && recoverWhile == null && frameName == null) {
-                return generateNodeCall(builder, level, rule, node, getNextName(funcName, 0), externalArguments);
-            }
-            else {
-                type = BNF_SEQUENCE;
-            }
+    @RequiredReadAction
+    private boolean expression(PsiBuilder builder, int level, ExpressionPlan plan, Map<String, Parser> externalArguments) {
+        if (plan.directCall != null) {
+            return nodeCall(builder, level, plan.directCall, externalArguments);
         }
-        if (!children.isEmpty()) {
-            if (!recursion_guard_(builder, level, funcName)) {
+        BnfExpression[] children = plan.children;
+        CallPlan[] calls = plan.calls;
+        if (children.length > 0) {
+            if (!recursion_guard_(builder, level, plan.funcName)) {
                 return false;
             }
         }
 
-        PinMatcher pinMatcher = new PinMatcher(myVersion, rule, type, firstNonTrivial ? rule.getName() : funcName);
+        IElementType type = plan.type;
         boolean pinApplied = false;
-        boolean alwaysTrue = type == BNF_OP_OPT || type == BNF_OP_ZEROMORE;
+        boolean alwaysTrue = plan.alwaysTrue;
 
-        boolean result_ = type == BNF_OP_ZEROMORE || type == BNF_OP_OPT || children.isEmpty();
-        boolean pinned = pinMatcher.active();
+        boolean result_ = type == BNF_OP_ZEROMORE || type == BNF_OP_OPT || children.length == 0;
+        boolean pinned = plan.pinned;
         boolean pinned_ = false;
 
-        int modifiers = 0;
-        if (canCollapse) {
-            modifiers |= _COLLAPSE_;
-        }
-        if (isLeftInner) {
-            modifiers |= _LEFT_INNER_;
-        }
-        else if (isLeft) {
-            modifiers |= _LEFT_;
-        }
-        if (type == BNF_OP_AND) {
-            modifiers |= _AND_;
-        }
-        else if (type == BNF_OP_NOT) {
-            modifiers |= _NOT_;
-        }
-        if (isBranch) {
-            modifiers |= _UPPER_;
-        }
-
         PsiBuilder.Marker marker_ = null;
-        boolean sectionRequired = !alwaysTrue || !isPrivate || isLeft || recoverWhile != null;
-        boolean sectionRequiredSimple = sectionRequired && modifiers == _NONE_ && recoverWhile == null && !(pinned || frameName != null);
-        boolean sectionMaybeDropped = sectionRequiredSimple && type == BNF_CHOICE && elementType == null
-            && children.stream().noneMatch(o -> ParserGeneratorUtil.isRollbackRequired(myVersion, o, myFile));
-
-        if (sectionRequiredSimple) {
-            if (!sectionMaybeDropped) {
+        if (plan.sectionRequiredSimple) {
+            if (!plan.sectionMaybeDropped) {
                 marker_ = enter_section_(builder);
             }
         }
-        else if (sectionRequired) {
-            marker_ = enter_section_(builder, level, modifiers, elementType, frameName);
+        else if (plan.sectionRequired) {
+            marker_ = enter_section_(builder, level, plan.modifiers, plan.elementType, plan.frameName);
         }
 
         int[] skip = {0};
-        for (int i = 0, p = 0, childrenSize = children.size(); i < childrenSize; i++) {
-            BnfExpression child = children.get(i);
+        for (int i = 0, p = 0, childrenSize = children.length; i < childrenSize; i++) {
+            CallPlan call = calls[i];
 
             if (type == BNF_CHOICE) {
                 if (i == 0) {
-                    result_ = generateNodeCall(builder, level, rule, child, getNextName(funcName, i), externalArguments);
+                    result_ = nodeCall(builder, level, call, externalArguments);
                 }
                 else if (!result_) {
-                    result_ = generateNodeCall(builder, level, rule, child, getNextName(funcName, i), externalArguments);
+                    result_ = nodeCall(builder, level, call, externalArguments);
                 }
             }
             else if (type == BNF_SEQUENCE) {
                 if (skip[0] == 0) {
                     if (i == 0) {
-                        result_ = generateTokenSequenceCall(
-                            builder,
-                            level,
-                            rule,
-                            children,
-                            funcName,
-                            i,
-                            pinMatcher,
-                            pinApplied,
-                            skip,
-                            externalArguments
-                        );
+                        result_ = generateTokenSequenceCall(builder, level, plan, i, skip, externalArguments);
                     }
                     else {
                         if (pinApplied && G.generateExtendedPin) {
                             if (i == childrenSize - 1) {
                                 // do not report error for last child
                                 if (i == p + 1) {
-                                    result_ = result_ && generateTokenSequenceCall(
-                                        builder,
-                                        level,
-                                        rule,
-                                        children,
-                                        funcName,
-                                        i,
-                                        pinMatcher,
-                                        pinApplied,
-                                        skip,
-                                        externalArguments
-                                    );
+                                    result_ = result_ && generateTokenSequenceCall(builder, level, plan, i, skip, externalArguments);
                                 }
                                 else {
-                                    result_ = pinned_ && generateTokenSequenceCall(
-                                        builder,
-                                        level,
-                                        rule,
-                                        children,
-                                        funcName,
-                                        i,
-                                        pinMatcher,
-                                        pinApplied,
-                                        skip,
-                                        externalArguments
-                                    ) && result_;
+                                    result_ = pinned_
+                                        && generateTokenSequenceCall(builder, level, plan, i, skip, externalArguments)
+                                        && result_;
                                 }
                             }
                             else if (i == p + 1) {
                                 result_ = result_ && report_error_(
                                     builder,
-                                    generateTokenSequenceCall(
-                                        builder,
-                                        level,
-                                        rule,
-                                        children,
-                                        funcName,
-                                        i,
-                                        pinMatcher,
-                                        pinApplied,
-                                        skip,
-                                        externalArguments
-                                    )
+                                    generateTokenSequenceCall(builder, level, plan, i, skip, externalArguments)
                                 );
                             }
                             else {
                                 result_ = pinned_ && report_error_(
                                     builder,
-                                    generateTokenSequenceCall(
-                                        builder,
-                                        level,
-                                        rule,
-                                        children,
-                                        funcName,
-                                        i,
-                                        pinMatcher,
-                                        pinApplied,
-                                        skip,
-                                        externalArguments
-                                    )
+                                    generateTokenSequenceCall(builder, level, plan, i, skip, externalArguments)
                                 ) && result_;
                             }
                         }
                         else {
-                            result_ = result_ && generateTokenSequenceCall(
-                                builder,
-                                level,
-                                rule,
-                                children,
-                                funcName,
-                                i,
-                                pinMatcher,
-                                pinApplied,
-                                skip,
-                                externalArguments
-                            );
+                            result_ = result_ && generateTokenSequenceCall(builder, level, plan, i, skip, externalArguments);
                         }
                     }
                 }
@@ -365,36 +276,36 @@ public class LivePreviewParser implements PsiParser {
                         p++; // shift pinned index as we skip
                     }
                 }
-                if (!pinApplied && pinMatcher.matches(i, child)) {
+                if (!pinApplied && plan.pinAt[i]) {
                     pinApplied = true;
                     p = i;
                     pinned_ = result_; // pin = pinMatcher.pinValue
                 }
             }
             else if (type == BNF_OP_OPT) {
-                generateNodeCall(builder, level, rule, child, getNextName(funcName, i), externalArguments);
+                nodeCall(builder, level, call, externalArguments);
             }
             else if (type == BNF_OP_ONEMORE || type == BNF_OP_ZEROMORE) {
                 if (type == BNF_OP_ONEMORE) {
-                    result_ = generateNodeCall(builder, level, rule, child, getNextName(funcName, i), externalArguments);
+                    result_ = nodeCall(builder, level, call, externalArguments);
                 }
                 int pos = current_position_(builder);
                 //noinspection LoopConditionNotUpdatedInsideLoop
                 while (alwaysTrue || result_) {
-                    if (!generateNodeCall(builder, level, rule, child, getNextName(funcName, i), externalArguments)) {
+                    if (!nodeCall(builder, level, call, externalArguments)) {
                         break;
                     }
-                    if (!empty_element_parsed_guard_(builder, funcName, pos)) {
+                    if (!empty_element_parsed_guard_(builder, plan.funcName, pos)) {
                         break;
                     }
                     pos = current_position_(builder);
                 }
             }
             else if (type == BNF_OP_AND) {
-                result_ = generateNodeCall(builder, level, rule, child, getNextName(funcName, i), externalArguments);
+                result_ = nodeCall(builder, level, call, externalArguments);
             }
             else if (type == BNF_OP_NOT) {
-                result_ = !generateNodeCall(builder, level, rule, child, getNextName(funcName, i), externalArguments);
+                result_ = !nodeCall(builder, level, call, externalArguments);
             }
             else {
                 addWarning(myFile.getProject(), "unexpected: " + type);
@@ -403,34 +314,17 @@ public class LivePreviewParser implements PsiParser {
 
         boolean success = alwaysTrue || result_ || pinned_;
 
-        if (!hooks.isEmpty()) {
-            for (Map.Entry<String, String> entry : hooks.entrySet()) {
-                if (entry.getValue() == null) {
-                    continue;
-                }
-                String name = ParserGeneratorUtil.toIdentifier(entry.getKey(), null, Case.UPPER);
-                LiveHooksHelper.registerHook(builder, name, entry.getValue());
-            }
+        for (int i = 0; i < plan.hookNames.length; i++) {
+            LiveHooksHelper.registerHook(builder, plan.hookNames[i], plan.hookValues[i]);
         }
-        if (sectionRequiredSimple) {
-            if (!sectionMaybeDropped) {
-                exit_section_(builder, marker_, elementType, alwaysTrue || result_);
+        if (plan.sectionRequiredSimple) {
+            if (!plan.sectionMaybeDropped) {
+                exit_section_(builder, marker_, plan.elementType, alwaysTrue || result_);
             }
         }
-        else if (sectionRequired) {
-            Parser recoverPredicate;
-            final BnfRule recoverRule = recoverWhile != null ? myFile.getRule(recoverWhile) : null;
-            if (BnfConstants.RECOVER_AUTO.equals(recoverWhile)) {
-                final IElementType[] nextTokens = generateAutoRecoverCall(rule);
-                recoverPredicate = (builder12, level12) -> !GeneratedParserUtilBase.nextTokenIsFast(builder12, nextTokens);
-            }
-            else if (Rule.isMeta(rule) && GrammarUtil.isDoubleAngles(recoverWhile)) {
-                recoverPredicate = externalArguments.get(recoverWhile.substring(2, recoverWhile.length() - 2));
-            }
-            else {
-                recoverPredicate = recoverRule == null ? null
-                    : (builder1, level1) -> rule(builder1, level1, recoverRule, Collections.emptyMap());
-            }
+        else if (plan.sectionRequired) {
+            Parser recoverPredicate = plan.recoverArgument != null ? externalArguments.get(plan.recoverArgument)
+                : plan.recoverPredicate;
             exit_section_(builder, level, marker_, alwaysTrue || result_, pinned_, recoverPredicate);
         }
 
@@ -467,59 +361,36 @@ public class LivePreviewParser implements PsiParser {
         String nextName,
         Map<String, Parser> externalArguments
     ) {
-        IElementType type = node == null ? BNF_REFERENCE_OR_TOKEN : getEffectiveType(node);
-        String text = node == null ? nextName : node.getText();
-        if (type == BNF_STRING) {
-            String value = StringUtil.stripQuotesAroundValue(text);
-            String attributeName = getTokenName(value);
-            if (attributeName != null) {
-                return generateConsumeToken(builder, attributeName);
-            }
-            return generateConsumeTextToken(builder, value);
-        }
-        else if (type == BNF_NUMBER) {
-            return generateConsumeTextToken(builder, text);
-        }
-        else if (type == BNF_REFERENCE_OR_TOKEN) {
-            BnfRule subRule = myFile.getRule(text);
-            if (subRule != null) {
-                //String method;
-                if (Rule.isExternal(subRule)) {
-                    // not supported
-                    return false;
-                    //method = generateExternalCall(rule, clause, GrammarUtil.getExternalRuleExpressions(subRule), nextName);
-                    //return method + "(builder_, level_ + 1" + clause.toString() + ")";
-                }
-                else {
-                    ExpressionHelper.ExpressionInfo info =
-                        ExpressionGeneratorHelper.getInfoForExpressionParsing(myExpressionHelper, subRule);
-                    if (info == null) {
-                        return rule(builder, level + 1, subRule, externalArguments);
-                    }
-                    else {
-                        int priority = info.getPriority(rule);
-                        int arg1Priority = subRule == info.rootRule ? -1 : info.getPriority(subRule);
-                        int argPriority = arg1Priority == -1
-                            ? (priority == info.nextPriority - 1 ? -1 : priority)
-                            : arg1Priority - 1;
-                        return generateExpressionRoot(builder, level, info, argPriority);
-                    }
-                }
-            }
-            return generateConsumeToken(builder, text);
-        }
-        else if (type == BNF_EXTERNAL_EXPRESSION) {
-            List<BnfExpression> expressions = ((BnfExternalExpression)node).getExpressionList();
-            if (expressions.size() == 1 && Rule.isMeta(rule)) {
-                Parser parser = externalArguments.get(node.getText());
+        return parseCall(builder, level, getCallPlan(rule, node, nextName), externalArguments);
+    }
+
+    @RequiredReadAction
+    private boolean nodeCall(PsiBuilder builder, int level, CallPlan call, Map<String, Parser> externalArguments) {
+        return myObservesNodeCalls
+            ? generateNodeCall(builder, level, call.rule, call.node, call.nextName, externalArguments)
+            : parseCall(builder, level, call, externalArguments);
+    }
+
+    @RequiredReadAction
+    private boolean parseCall(PsiBuilder builder, int level, CallPlan plan, Map<String, Parser> externalArguments) {
+        switch (plan.kind) {
+            case TOKEN:
+                return plan.tokenType != null && generateConsumeToken(builder, plan.tokenType);
+            case TEXT:
+                return generateConsumeTextToken(builder, plan.text);
+            case RULE:
+                return rule(builder, level + 1, plan.getSubRulePlan(), plan.subRuleNumber, externalArguments);
+            case EXPRESSION_ROOT:
+                return generateExpressionRoot(builder, level, plan.expressionInfo, plan.argPriority);
+            case ARGUMENT:
+                Parser parser = externalArguments.get(plan.text);
                 return parser != null && parser.parse(builder, level);
-            }
-            else {
-                return generateExternalCall(builder, level, rule, expressions, nextName, externalArguments);
-            }
-        }
-        else {
-            return expression(builder, level, rule, node, nextName, externalArguments);
+            case EXTERNAL:
+                return generateExternalCall(builder, level, plan.rule, plan.externalExpressions, plan.nextName, externalArguments);
+            case EXPRESSION:
+                return expression(builder, level, plan.expression, externalArguments);
+            default:
+                return false;
         }
     }
 
@@ -527,45 +398,51 @@ public class LivePreviewParser implements PsiParser {
     private boolean generateTokenSequenceCall(
         PsiBuilder builder,
         int level,
-        BnfRule rule,
-        List<BnfExpression> children,
-        String funcName,
+        ExpressionPlan plan,
         int startIndex,
-        PinMatcher pinMatcher,
-        boolean pinApplied,
         int[] skip,
         Map<String, Parser> externalArguments
     ) {
-        BnfExpression nextChild = children.get(startIndex);
-        if (startIndex == children.size() - 1 || !isTokenExpression(nextChild)) {
-            return generateNodeCall(builder, level, rule, nextChild, funcName, externalArguments);
-        }
-        ArrayList<IElementType> list = new ArrayList<>();
-        int pin = pinApplied ? -1 : 0;
-        for (int i = startIndex, len = children.size(); i < len; i++) {
-            BnfExpression child = children.get(i);
-            IElementType type = child.getNode().getElementType();
-            String text = child.getText();
-            String tokenName;
-            if (type == BNF_STRING && text.charAt(0) != '\"') {
-                tokenName = getTokenName(StringUtil.stripQuotesAroundValue(text));
-            }
-            else if (type == BNF_REFERENCE_OR_TOKEN && myFile.getRule(text) == null) {
-                tokenName = text;
-            }
-            else {
-                break;
-            }
-            list.add(getTokenElementType(tokenName));
-            if (!pinApplied && pinMatcher.matches(i, child)) {
-                pin = i - startIndex + 1;
-            }
+        IElementType[] tokens = plan.tokenSequences[startIndex];
+        if (tokens == null) {
+            return nodeCall(builder, level, plan.calls[startIndex], externalArguments);
         }
-        if (list.size() < 2) {
-            return generateNodeCall(builder, level, rule, nextChild, funcName, externalArguments);
+        skip[0] = tokens.length - 1;
+        return consumeTokens(builder, plan.tokenSequencePins[startIndex], tokens);
+    }
+
+    @Nonnull
+    @RequiredReadAction
+    private ExpressionPlan getRulePlan(BnfRule rule) {
+        ExpressionPlan plan = myRulePlans.get(rule);
+        if (plan == null) {
+            plan = getExpressionPlan(rule, rule.getExpression(), rule.getName());
+        }
+        return plan;
+    }
+
+    @Nonnull
+    @RequiredReadAction
+    private ExpressionPlan getExpressionPlan(BnfRule rule, BnfExpression initialNode, String funcName) {
+        PlanKey key = new PlanKey(rule, initialNode, funcName);
+        ExpressionPlan plan = myExpressionPlans.get(key);
+        if (plan == null) {
+            plan = new ExpressionPlan(rule, initialNode, funcName);
+            myExpressionPlans.put(key, plan);
+        }
+        return plan;
+    }
+
+    @Nonnull
+    @RequiredReadAction
+    private CallPlan getCallPlan(BnfRule rule, @Nullable BnfExpression node, String nextName) {
+        PlanKey key = new PlanKey(rule, node, nextName);
+        CallPlan plan = myCallPlans.get(key);
+        if (plan == null) {
+            plan = new CallPlan(rule, node, nextName);
+            myCallPlans.put(key, plan);
         }
-        skip[0] = list.size() - 1;
-        return consumeTokens(builder, pin, list.toArray(new IElementType[list.size()]));
+        return plan;
     }
 
     @RequiredReadAction
@@ -945,4 +822,310 @@ public class LivePreviewParser implements PsiParser {
         }
         return tokenTypes.toArray(new IElementType[tokenTypes.size()]);
     }
+
+    private record PlanKey(BnfRule rule, @Nullable BnfExpression node, String name) {
+    }
+
+    private enum CallKind {
+        TOKEN, TEXT, RULE, EXPRESSION_ROOT, ARGUMENT, EXTERNAL, EXPRESSION, NONE
+    }
+
+    /**
+     * What {@link #generateNodeCall} does for an expression, resolved once per parse.
+     */
+    private final class CallPlan {
+        final BnfRule rule;
+        @Nullable
+        final BnfExpression node;
+        final String nextName;
+        final CallKind kind;
+        final String text;
+        final IElementType tokenType;
+        final BnfRule subRule;
+        final int subRuleNumber;
+        final ExpressionHelper.ExpressionInfo expressionInfo;
+        final int argPriority;
+        final List<BnfExpression> externalExpressions;
+        final ExpressionPlan expression;
+        // rules refer to each other, so the plan of the called rule is resolved on the first call
+        private ExpressionPlan mySubRulePlan;
+
+        @RequiredReadAction
+        CallPlan(BnfRule rule, @Nullable BnfExpression node, String nextName) {
+            this.rule = rule;
+            this.node = node;
+            this.nextName = nextName;
+            IElementType type = node == null ? BNF_REFERENCE_OR_TOKEN : getEffectiveType(node);
+            String text = node == null ? nextName : node.getText();
+            CallKind kind = CallKind.NONE;
+            IElementType tokenType = null;
+            BnfRule subRule = null;
+            ExpressionHelper.ExpressionInfo expressionInfo = null;
+            int argPriority = -1;
+            List<BnfExpression> externalExpressions = null;
+            ExpressionPlan expression = null;
+            if (type == BNF_STRING) {
+                String value = StringUtil.stripQuotesAroundValue(text);
+                String attributeName = getTokenName(value);
+                if (attributeName != null) {
+                    kind = CallKind.TOKEN;
+                    tokenType = getTokenElementType(attributeName);
+                }
+                else {
+                    kind = CallKind.TEXT;
+                    text = value;
+                }
+            }
+            else if (type == BNF_NUMBER) {
+                kind = CallKind.TEXT;
+            }
+            else if (type == BNF_REFERENCE_OR_TOKEN) {
+                subRule = myFile.getRule(text);
+                if (subRule == null) {
+                    kind = CallKind.TOKEN;
+                    tokenType = getTokenElementType(text);
+                }
+                else if (!Rule.isExternal(subRule)) { // external rules are not supported
+                    expressionInfo = ExpressionGeneratorHelper.getInfoForExpressionParsing(myExpressionHelper, subRule);
+                    if (expressionInfo == null) {
+                        kind = CallKind.RULE;
+                    }
+                    else {
+                        kind = CallKind.EXPRESSION_ROOT;
+                        int priority = expressionInfo.getPriority(rule);
+                        int arg1Priority = subRule == expressionInfo.rootRule ? -1 : expressionInfo.getPriority(subRule);
+                        argPriority = arg1Priority == -1
+                            ? (priority == expressionInfo.nextPriority - 1 ? -1 : priority)
+                            : arg1Priority - 1;
+                    }
+                }
+            }
+            else if (type == BNF_EXTERNAL_EXPRESSION) {
+                List<BnfExpression> expressions = ((BnfExternalExpression)node).getExpressionList();
+                if (expressions.size() == 1 && Rule.isMeta(rule)) {
+                    kind = CallKind.ARGUMENT;
+                }
+                else {
+                    kind = CallKind.EXTERNAL;
+                    externalExpressions = expressions;
+                }
+            }
+            else {
+                kind = CallKind.EXPRESSION;
+                expression = getExpressionPlan(rule, node, nextName);
+            }
+            this.kind = kind;
+            this.text = text;
+            this.tokenType = tokenType;
+            this.subRule = subRule;
+            this.subRuleNumber = kind == CallKind.RULE ? myRuleNumbers.getInt(subRule) : -1;
+            this.expressionInfo = expressionInfo;
+            this.argPriority = argPriority;
+            this.externalExpressions = externalExpressions;
+            this.expression = expression;
+        }
+
+        @Nonnull
+        @RequiredReadAction
+        ExpressionPlan getSubRulePlan() {
+            if (mySubRulePlan == null) {
+                mySubRulePlan = getRulePlan(subRule);
+            }
+            return mySubRulePlan;
+        }
+    }
+
+    /**
+     * Attributes and structure of an expression within a rule resolved once per parse,
+     * so the interpreter neither looks up attributes nor walks PSI.
+     */
+    private final class ExpressionPlan {
+        final BnfRule rule;
+        final String funcName;
+        final IElementType type;
+        final CallPlan directCall;
+        final BnfExpression[] children;
+        final CallPlan[] calls;
+        final String[] childNames;
+        final boolean[] pinAt;
+        final IElementType[][] tokenSequences;
+        final int[] tokenSequencePins;
+        final boolean alwaysTrue;
+        final boolean pinned;
+        final int modifiers;
+        final IElementType elementType;
+        final String frameName;
+        final boolean sectionRequired;
+        final boolean sectionRequiredSimple;
+        final boolean sectionMaybeDropped;
+        final String[] hookNames;
+        final String[] hookValues;
+        final String recoverArgument;
+        final Parser recoverPredicate;
+
+        @RequiredReadAction
+        ExpressionPlan(BnfRule rule, BnfExpression initialNode, String funcName) {
+            this.rule = rule;
+            this.funcName = funcName;
+            boolean isRule = initialNode.getParent() == rule;
+            BnfExpression node = getNonTrivialNode(initialNode);
+
+            IElementType type = getEffectiveType(node);
+
+            boolean firstNonTrivial = node == ParserGeneratorUtil.Rule.firstNotTrivial(rule);
+            boolean isPrivate = !(isRule || firstNonTrivial) || ParserGeneratorUtil.Rule.isPrivate(rule) || myGrammarRoot == rule;
+            boolean isLeft = firstNonTrivial && ParserGeneratorUtil.Rule.isLeft(rule);
+            boolean isLeftInner = isLeft && (isPrivate || ParserGeneratorUtil.Rule.isInner(rule));
+            boolean isBranch = !isPrivate && Rule.isUpper(rule);
+            String recoverWhile = firstNonTrivial ? getAttribute(myVersion, rule, KnownAttribute.RECOVER_WHILE) : null;
+            Map<String, String> hooks =
+                firstNonTrivial ? getAttribute(myVersion, rule, KnownAttribute.HOOKS).asMap(myVersion) : Collections.emptyMap();
+            boolean canCollapse = !isPrivate && (!isLeft || isLeftInner) && firstNonTrivial && myGraphHelper.canCollapse(rule);
+
+            elementType = !isPrivate ? getRuleElementType(rule) : null;
+
+            boolean isSingleNode =
+                node instanceof BnfReferenceOrToken || node instanceof BnfLiteralExpression || node instanceof BnfExternalExpression;
+
+            List<BnfExpression> children = isSingleNode ? Collections.singletonList(node) : getChildExpressions(node);
+            frameName =
+                !children.isEmpty() && firstNonTrivial && !Rule.isMeta(rule) ? getRuleDisplayName(myVersion, rule, !isPrivate) : null;
+
+            boolean direct = false;
+            if (isSingleNode) {
+                if (isPrivate && !isLeftInner && recoverWhile == null && frameName == null) {
+                    direct = true;
+                }
+                else {
+                    type = BNF_SEQUENCE;
+                }
+            }
+            this.type = type;
+            this.children = children.toArray(new BnfExpression[0]);
+            childNames = new String[this.children.length];
+            for (int i = 0; i < childNames.length; i++) {
+                childNames[i] = getNextName(funcName, i);
+            }
+
+            PinMatcher pinMatcher = new PinMatcher(myVersion, rule, type, firstNonTrivial ? rule.getName() : funcName);
+            pinned = pinMatcher.active();
+            alwaysTrue = type == BNF_OP_OPT || type == BNF_OP_ZEROMORE;
+            pinAt = new boolean[this.children.length];
+            tokenSequences = new IElementType[this.children.length][];
+            tokenSequencePins = new int[this.children.length];
+            if (type == BNF_SEQUENCE && !direct) {
+                for (int i = 0; i < pinAt.length; i++) {
+                    pinAt[i] = pinMatcher.matches(i, this.children[i]);
+                }
+                boolean pinApplied = false;
+                for (int i = 0; i < pinAt.length; i++) {
+                    planTokenSequence(i, pinMatcher, pinApplied);
+                    pinApplied |= pinAt[i];
+                }
+            }
+
+            int modifiers = 0;
+            if (canCollapse) {
+                modifiers |= _COLLAPSE_;
+            }
+            if (isLeftInner) {
+                modifiers |= _LEFT_INNER_;
+            }
+            else if (isLeft) {
+                modifiers |= _LEFT_;
+            }
+            if (type == BNF_OP_AND) {
+                modifiers |= _AND_;
+            }
+            else if (type == BNF_OP_NOT) {
+                modifiers |= _NOT_;
+            }
+            if (isBranch) {
+                modifiers |= _UPPER_;
+            }
+            this.modifiers = modifiers;
+
+            sectionRequired = !alwaysTrue || !isPrivate || isLeft || recoverWhile != null;
+            sectionRequiredSimple = sectionRequired && modifiers == _NONE_ && recoverWhile == null && !(pinned || frameName != null);
+            sectionMaybeDropped = sectionRequiredSimple && type == BNF_CHOICE && elementType == null
+                && children.stream().noneMatch(o -> ParserGeneratorUtil.isRollbackRequired(myVersion, o, myFile));
+
+            List<String> names = new ArrayList<>();
+            List<String> values = new ArrayList<>();
+            for (Map.Entry<String, String> entry : hooks.entrySet()) {
+                if (entry.getValue() == null) {
+                    continue;
+                }
+                names.add(ParserGeneratorUtil.toIdentifier(entry.getKey(), null, Case.UPPER));
+                values.add(entry.getValue());
+            }
+            hookNames = names.toArray(new String[0]);
+            hookValues = values.toArray(new String[0]);
+
+            if (direct || recoverWhile == null) {
+                recoverArgument = null;
+                recoverPredicate = null;
+            }
+            else if (BnfConstants.RECOVER_AUTO.equals(recoverWhile)) {
+                IElementType[] nextTokens = generateAutoRecoverCall(rule);
+                recoverArgument = null;
+                recoverPredicate = (builder, level) -> !GeneratedParserUtilBase.nextTokenIsFast(builder, nextTokens);
+            }
+            else if (Rule.isMeta(rule) && GrammarUtil.isDoubleAngles(recoverWhile)) {
+                recoverArgument = recoverWhile.substring(2, recoverWhile.length() - 2);
+                recoverPredicate = null;
+            }
+            else {
+                BnfRule recoverRule = myFile.getRule(recoverWhile);
+                recoverArgument = null;
+                recoverPredicate = recoverRule == null ? null
+                    : (builder, level) -> rule(builder, level, recoverRule, Collections.emptyMap());
+            }
+
+            // the interpreter walks the planned calls by index, the items of a sequence are called with its own name
+            calls = new CallPlan[this.children.length];
+            if (!direct) {
+                for (int i = 0; i < calls.length; i++) {
+                    calls[i] = getCallPlan(rule, this.children[i], type == BNF_SEQUENCE ? funcName : childNames[i]);
+                }
+                directCall = null;
+            }
+            else {
+                directCall = getCallPlan(rule, node, getNextName(funcName, 0));
+            }
+        }
+
+        @RequiredReadAction
+        private void planTokenSequence(int startIndex, PinMatcher pinMatcher, boolean pinApplied) {
+            BnfExpression nextChild = children[startIndex];
+            if (startIndex == children.length - 1 || !isTokenExpression(nextChild)) {
+                return;
+            }
+            List<IElementType> list = new ArrayList<>();
+            int pin = pinApplied ? -1 : 0;
+            for (int i = startIndex, len = children.length; i < len; i++) {
+                BnfExpression child = children[i];
+                IElementType type = child.getNode().getElementType();
+                String text = child.getText();
+                String tokenName;
+                if (type == BNF_STRING && text.charAt(0) != '\"') {
+                    tokenName = getTokenName(StringUtil.stripQuotesAroundValue(text));
+                }
+                else if (type == BNF_REFERENCE_OR_TOKEN && myFile.getRule(text) == null) {
+                    tokenName = text;
+                }
+                else {
+                    break;
+                }
+                list.add(getTokenElementType(tokenName));
+                if (!pinApplied && pinMatcher.matches(i, child)) {
+                    pin = i - startIndex + 1;
+                }
+            }
+            if (list.size() >= 2) {
+                tokenSequences[startIndex] = list.toArray(new IElementType[list.size()]);
+                tokenSequencePins[startIndex] = pin;
+            }
+        }
+    }
 }
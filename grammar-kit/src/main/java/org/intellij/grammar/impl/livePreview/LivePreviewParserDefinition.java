@@ -27,9 +27,13 @@ import consulo.language.ast.TokenSet;
 import consulo.language.version.LanguageVersion;
 import consulo.language.impl.psi.ASTWrapperPsiElement;
 import consulo.language.impl.psi.PsiFileBase;
+import consulo.language.parser.PsiBuilder;
+import consulo.language.parser.PsiBuilderFactory;
 import consulo.language.parser.PsiParser;
 import consulo.language.psi.PsiElement;
 import consulo.language.psi.PsiFile;
+import consulo.language.version.LanguageVersionUtil;
+import consulo.virtualFileSystem.VirtualFile;
 import consulo.virtualFileSystem.fileType.FileType;
 import jakarta.annotation.Nonnull;
 
@@ -51,7 +55,22 @@ public class LivePreviewParserDefinition implements ParserDefinition {
 
     public LivePreviewParserDefinition(LivePreviewLanguage language) {
         myLanguage = language;
-        myFileElementType = new IFileElementType(myLanguage); // todo do not register
+        myFileElementType = new IFileElementType(myLanguage) { // todo do not register
+            @Override
+            protected ASTNode doParseContents(@Nonnull ASTNode chameleon, @Nonnull PsiElement psi) {
+                // the lexer keyed by the preview file relexes only the edited region on reparse
+                PsiFile file = psi.getContainingFile();
+                VirtualFile virtualFile = file == null ? null : file.getViewProvider().getVirtualFile();
+                LanguageVersion languageVersion = LanguageVersionUtil.findDefaultVersion(myLanguage);
+                PsiBuilder builder = PsiBuilderFactory.getInstance().createBuilder(
+                    LivePreviewParserDefinition.this,
+                    new LivePreviewLexer(psi.getProject(), myLanguage, virtualFile),
+                    languageVersion,
+                    chameleon.getChars()
+                );
+                return createParser(languageVersion).parse(this, builder, languageVersion).getFirstChildNode();
+            }
+        };
     }
 
     @Override
@@ -53,7 +53,7 @@ public class LivePreviewSyntaxHighlighterFactory extends SyntaxHighlighterFactor
             @Nonnull
             @Override
             public Lexer getHighlightingLexer() {
-                return new LivePreviewLexer(project, (LivePreviewLanguage)language) {
+                return new LivePreviewLexer(project, (LivePreviewLanguage)language, virtualFile) {
                     @Nullable
                     @Override
                     public IElementType getTokenType() {
@@ -34,6 +34,7 @@ import consulo.util.collection.ContainerUtil;
 import consulo.util.lang.ObjectUtil;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
+import org.intellij.grammar.analysis.BnfExpressionIndex;
 import org.intellij.grammar.generator.ParserGeneratorUtil;
 import org.intellij.grammar.psi.*;
 import org.intellij.grammar.psi.impl.BnfElementFactory;
@@ -178,18 +179,7 @@ public class BnfIntroduceRuleHandler implements RefactoringActionHandler {
             Collections.singletonList(selectedExpression.toArray(new BnfExpression[selectedExpression.size()]))
         );
         occurrencesMap.put(OccurrencesChooser.ReplaceChoice.ALL, new ArrayList<>());
-        file.acceptChildren(new PsiRecursiveElementWalkingVisitor() {
-            @Override
-            public void visitElement(PsiElement element) {
-                if (element instanceof BnfExpression expression) {
-                    findOccurrences(expression, selectedExpression, occurrencesMap);
-                }
-                else if (element instanceof BnfAttrs) {
-                    return;
-                }
-                super.visitElement(element);
-            }
-        });
+        findOccurrences((BnfFile)file, selectedExpression, occurrencesMap);
         if (occurrencesMap.get(OccurrencesChooser.ReplaceChoice.ALL).size() <= 1 && !Application.get().isUnitTestMode()) {
             occurrencesMap.remove(OccurrencesChooser.ReplaceChoice.ALL);
         }
@@ -299,16 +289,33 @@ public class BnfIntroduceRuleHandler implements RefactoringActionHandler {
 
     @RequiredReadAction
     private static void findOccurrences(
-        BnfExpression expression,
+        BnfFile file,
         List<BnfExpression> selectedExpressions,
         Map<OccurrencesChooser.ReplaceChoice, List<BnfExpression[]>> occurrencesMap
     ) {
+        BnfExpressionIndex index = BnfExpressionIndex.getInstance(file);
         if (selectedExpressions.size() == 1) {
-            if (GrammarUtil.equalsElement(expression, selectedExpressions.get(0))) {
-                addOccurrence(OccurrencesChooser.ReplaceChoice.ALL, occurrencesMap, expression);
+            // structurally equal expressions share one table entry, no need to walk the whole file
+            for (BnfExpression expression : index.getOccurrences(selectedExpressions.get(0))) {
+                if (!GrammarUtil.isInAttributesReference(expression)) {
+                    addOccurrence(OccurrencesChooser.ReplaceChoice.ALL, occurrencesMap, expression);
+                }
             }
+            return;
+        }
+        for (BnfExpression expression : GrammarUtil.bnfTraverserNoAttrs(file).filter(BnfExpression.class)) {
+            findOccurrences(index, expression, selectedExpressions, occurrencesMap);
         }
-        else if (!GrammarUtil.isOneTokenExpression(expression)) {
+    }
+
+    @RequiredReadAction
+    private static void findOccurrences(
+        BnfExpressionIndex index,
+        BnfExpression expression,
+        List<BnfExpression> selectedExpressions,
+        Map<OccurrencesChooser.ReplaceChoice, List<BnfExpression[]>> occurrencesMap
+    ) {
+        if (!GrammarUtil.isOneTokenExpression(expression)) {
             final PsiElement selectedParent = selectedExpressions.get(0).getParent();
             if (ParserGeneratorUtil.getEffectiveType(expression) != ParserGeneratorUtil.getEffectiveType(selectedParent)) {
                 return;
@@ -319,7 +326,7 @@ public class BnfIntroduceRuleHandler implements RefactoringActionHandler {
                 if (!(c instanceof BnfExpression)) {
                     continue;
                 }
-                if (GrammarUtil.equalsElement((BnfExpression)c, selectedExpressions.get(pos))) {
+                if (index.equalsStructure((BnfExpression)c, selectedExpressions.get(pos))) {
                     if (pos == 0) {
                         s = c;
                     }
@@ -0,0 +1,23 @@
+package consulo.devkit;
+
+import consulo.annotation.component.ExtensionImpl;
+import consulo.localize.LocalizeValue;
+import consulo.project.ui.notification.NotificationGroup;
+import consulo.project.ui.notification.NotificationGroupContributor;
+import jakarta.annotation.Nonnull;
+
+import java.util.function.Consumer;
+
+/**
+ * @author agent
+ * @since 2026-10-18
+ */
+@ExtensionImpl
+public class DevKitNotificationGroup implements NotificationGroupContributor {
+    public static final NotificationGroup DEVKIT = NotificationGroup.balloonGroup("ConsuloDevKit", LocalizeValue.localizeTODO("Consulo DevKit"));
+
+    @Override
+    public void contribute(@Nonnull Consumer<NotificationGroup> consumer) {
+        consumer.accept(DEVKIT);
+    }
+}
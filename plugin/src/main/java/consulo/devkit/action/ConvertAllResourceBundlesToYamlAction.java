@@ -0,0 +1,34 @@
+package consulo.devkit.action;
+
+import consulo.annotation.component.ActionImpl;
+import consulo.annotation.component.ActionParentRef;
+import consulo.annotation.component.ActionRef;
+import consulo.module.Module;
+import consulo.project.Project;
+import consulo.ui.annotation.RequiredUIAccess;
+import consulo.ui.ex.action.AnActionEvent;
+import jakarta.annotation.Nonnull;
+
+/**
+ * Converts every base resource bundle of the selected module, or of the whole project if no module is selected.
+ * Bundles which already have a YAML file are skipped and listed in the result notification.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+@ActionImpl(id = "ConvertAllResourceBundlesToYamlAction", parents = @ActionParentRef(@ActionRef(id = "ProjectViewPopupMenu")))
+public class ConvertAllResourceBundlesToYamlAction extends InternalAction {
+    public ConvertAllResourceBundlesToYamlAction() {
+        super("Convert all resource bundles to YAML (skip existing)");
+    }
+
+    @RequiredUIAccess
+    @Override
+    public void actionPerformed(@Nonnull AnActionEvent e) {
+        Project project = e.getData(Project.KEY);
+        assert project != null;
+        Module module = e.getData(Module.KEY);
+
+        ResourceBundleToYamlConverter.convertInBackground(project, () -> ResourceBundleToYamlConverter.findBundles(project, module), false);
+    }
+}
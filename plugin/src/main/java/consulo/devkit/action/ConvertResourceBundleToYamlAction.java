@@ -1,25 +1,15 @@
 package consulo.devkit.action;
 
-import com.intellij.lang.properties.IProperty;
 import com.intellij.lang.properties.PropertiesFileType;
-import com.intellij.lang.properties.psi.PropertiesFile;
 import consulo.annotation.access.RequiredReadAction;
-import consulo.devkit.localize.LocalizeYamlUtil;
-import consulo.language.editor.CommonDataKeys;
 import consulo.language.psi.PsiFile;
+import consulo.project.Project;
 import consulo.ui.annotation.RequiredUIAccess;
 import consulo.ui.ex.action.AnActionEvent;
-import consulo.virtualFileSystem.LocalFileSystem;
-import consulo.virtualFileSystem.util.VirtualFileUtil;
-import org.yaml.snakeyaml.Yaml;
-
+import consulo.virtualFileSystem.VirtualFile;
 import jakarta.annotation.Nonnull;
-import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.Map;
+
+import java.util.List;
 
 /**
  * @author VISTALL
@@ -33,35 +23,14 @@ public class ConvertResourceBundleToYamlAction extends InternalAction {
     @RequiredUIAccess
     @Override
     public void actionPerformed(@Nonnull AnActionEvent event) {
+        Project project = event.getData(Project.KEY);
+        assert project != null;
         PsiFile file = event.getData(PsiFile.KEY);
+        assert file != null;
 
-        PropertiesFile propertiesFile = (PropertiesFile)file;
-
-        assert propertiesFile != null;
-
-        HashMap<String, Map<String, String>> messages = new LinkedHashMap<>();
-
-        for (IProperty property : propertiesFile.getProperties()) {
-            Map<String, String> messageInfo = new LinkedHashMap<>();
-            messageInfo.put("text", property.getUnescapedValue());
-
-            messages.put(property.getUnescapedKey(), messageInfo);
-        }
-
-        Yaml yaml = LocalizeYamlUtil.create();
-
-        File ioFile = VirtualFileUtil.virtualToIoFile(file.getVirtualFile());
-
-        File parentFile = ioFile.getParentFile();
-
-        File result = new File(parentFile, file.getVirtualFile().getNameWithoutExtension() + ".yaml");
-        try (Writer fileWriter = new OutputStreamWriter(new FileOutputStream(result), StandardCharsets.UTF_8)) {
-            yaml.dump(messages, fileWriter);
-        }
-        catch (IOException ignored) {
-        }
-
-        LocalFileSystem.getInstance().refreshIoFiles(Arrays.asList(result));
+        VirtualFile virtualFile = file.getVirtualFile();
+        // an explicit conversion of one bundle replaces its YAML file as before
+        ResourceBundleToYamlConverter.convertInBackground(project, () -> List.of(virtualFile), true);
     }
 
     @RequiredReadAction
@@ -72,7 +41,7 @@ public class ConvertResourceBundleToYamlAction extends InternalAction {
         }
 
         PsiFile file = e.getData(PsiFile.KEY);
-        if (file == null || file.getFileType() != PropertiesFileType.INSTANCE) {
+        if (file == null || file.getFileType() != PropertiesFileType.INSTANCE || file.getVirtualFile() == null) {
             return false;
         }
 
@@ -0,0 +1,374 @@
+package consulo.devkit.action;
+
+import com.intellij.lang.properties.IProperty;
+import com.intellij.lang.properties.PropertiesFileType;
+import com.intellij.lang.properties.psi.PropertiesFile;
+import consulo.annotation.access.RequiredReadAction;
+import consulo.application.ReadAction;
+import consulo.application.progress.PerformInBackgroundOption;
+import consulo.application.progress.ProgressIndicator;
+import consulo.application.progress.ProgressManager;
+import consulo.application.progress.Task;
+import consulo.component.ProcessCanceledException;
+import consulo.devkit.DevKitNotificationGroup;
+import consulo.devkit.localize.LocalizeUtil;
+import consulo.devkit.localize.LocalizeYamlUtil;
+import consulo.language.content.ProductionResourceContentFolderTypeProvider;
+import consulo.language.psi.PsiManager;
+import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.language.psi.search.FileTypeIndex;
+import consulo.logging.Logger;
+import consulo.module.Module;
+import consulo.module.ModuleManager;
+import consulo.module.content.ModuleRootManager;
+import consulo.project.Project;
+import consulo.project.ui.notification.Notification;
+import consulo.project.ui.notification.NotificationType;
+import consulo.project.ui.notification.Notifications;
+import consulo.util.lang.ExceptionUtil;
+import consulo.util.lang.StringUtil;
+import consulo.virtualFileSystem.LocalFileSystem;
+import consulo.virtualFileSystem.VirtualFile;
+import consulo.virtualFileSystem.util.VirtualFileUtil;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * Converts {@code .properties} resource bundles to localize YAML files placed next to them.
+ * <p>
+ * Bundles are converted concurrently. The properties of a bundle are copied in a non-blocking read action
+ * and written to the YAML file outside of it, one at a time. Existing YAML files are either overwritten or left
+ * untouched and reported as skipped. The written files are refreshed in one batch and the results are reported
+ * in one notification.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+public class ResourceBundleToYamlConverter {
+    private static final Logger LOG = Logger.getInstance(ResourceBundleToYamlConverter.class);
+
+    private static final Set<String> ourLanguages = Set.of(Locale.getISOLanguages());
+    private static final Set<String> ourCountries = Set.of(Locale.getISOCountries());
+
+    /**
+     * @param keys    number of keys written
+     * @param skipped whether the YAML file already existed and was left untouched
+     * @param error   failure of reading or writing the bundle
+     */
+    public record Result(
+        @Nonnull VirtualFile bundle,
+        @Nonnull File yamlFile,
+        int keys,
+        boolean skipped,
+        long millis,
+        @Nullable Exception error
+    ) {
+    }
+
+    private ResourceBundleToYamlConverter() {
+    }
+
+    /**
+     * Bundles are the {@code .properties} files of production resource roots which are named like one
+     * ({@code *Bundle}, {@code *Messages} or placed in a {@code messages} directory) or have locale variants next to them.
+     * Locale variants themselves and other property files, e.g. {@code log4j.properties}, are skipped.
+     *
+     * @return base bundles of the module or of the whole project
+     */
+    @Nonnull
+    @RequiredReadAction
+    public static List<VirtualFile> findBundles(@Nonnull Project project, @Nullable Module module) {
+        Module[] modules = module != null ? new Module[]{module} : ModuleManager.getInstance(project).getModules();
+        List<VirtualFile> resourceRoots = new ArrayList<>();
+        for (Module m : modules) {
+            Collections.addAll(
+                resourceRoots,
+                ModuleRootManager.getInstance(m).getContentFolderFiles(it -> it == ProductionResourceContentFolderTypeProvider.getInstance())
+            );
+        }
+        if (resourceRoots.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        GlobalSearchScope scope = module != null ? GlobalSearchScope.moduleScope(module) : GlobalSearchScope.projectScope(project);
+        List<VirtualFile> bundles = new ArrayList<>();
+        for (VirtualFile file : FileTypeIndex.getFiles(PropertiesFileType.INSTANCE, scope)) {
+            if (isUnder(file, resourceRoots) && isBaseBundle(file)) {
+                bundles.add(file);
+            }
+        }
+        bundles.sort(Comparator.comparing(VirtualFile::getPath));
+        return bundles;
+    }
+
+    private static boolean isUnder(@Nonnull VirtualFile file, @Nonnull List<VirtualFile> roots) {
+        for (VirtualFile root : roots) {
+            if (VirtualFileUtil.isAncestor(root, file, true)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isBaseBundle(@Nonnull VirtualFile file) {
+        VirtualFile parent = file.getParent();
+        String name = file.getNameWithoutExtension();
+        if (parent == null || isLocaleVariant(parent, name)) {
+            return false;
+        }
+        if (name.endsWith("Bundle") || name.endsWith("Messages") || "messages".equals(parent.getName())) {
+            return true;
+        }
+        for (VirtualFile sibling : parent.getChildren()) {
+            if (sibling.getFileType() == PropertiesFileType.INSTANCE && name.equals(getBaseName(sibling.getNameWithoutExtension()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A locale variant is named after the base bundle next to it, e.g. {@code messages_de} or {@code messages_pt_BR}.
+     */
+    private static boolean isLocaleVariant(@Nonnull VirtualFile parent, @Nonnull String name) {
+        String baseName = getBaseName(name);
+        return baseName != null && parent.findChild(baseName + "." + PropertiesFileType.INSTANCE.getDefaultExtension()) != null;
+    }
+
+    /**
+     * @return the name without a trailing ISO language and optional country code, {@code null} if there is no such suffix
+     */
+    @Nullable
+    static String getBaseName(@Nonnull String name) {
+        int index = name.lastIndexOf('_');
+        if (index <= 0) {
+            return null;
+        }
+        String suffix = name.substring(index + 1);
+        if (ourLanguages.contains(suffix)) {
+            return name.substring(0, index);
+        }
+        if (!ourCountries.contains(suffix)) {
+            return null;
+        }
+        int languageIndex = name.lastIndexOf('_', index - 1);
+        if (languageIndex <= 0 || !ourLanguages.contains(name.substring(languageIndex + 1, index))) {
+            return null;
+        }
+        return name.substring(0, languageIndex);
+    }
+
+    /**
+     * Finds the bundles under a read action and converts them in a background task.
+     *
+     * @param overwrite whether existing YAML files are replaced, otherwise their bundles are skipped
+     */
+    public static void convertInBackground(
+        @Nonnull Project project,
+        @RequiredReadAction @Nonnull Supplier<List<VirtualFile>> bundlesSupplier,
+        boolean overwrite
+    ) {
+        ProgressManager.getInstance().run(
+            new Task.Backgroundable(project, "Converting Resource Bundles to YAML", true, PerformInBackgroundOption.ALWAYS_BACKGROUND) {
+                @Override
+                public void run(@Nonnull ProgressIndicator indicator) {
+                    long startTime = System.currentTimeMillis();
+                    indicator.setIndeterminate(true);
+                    List<VirtualFile> bundles = ReadAction.compute(bundlesSupplier::get);
+                    if (bundles.isEmpty()) {
+                        notify(project, "No resource bundles found", "", NotificationType.INFORMATION);
+                        return;
+                    }
+
+                    List<Result> results = new ArrayList<>(bundles.size());
+                    try {
+                        convertAll(project, bundles, overwrite, indicator, results);
+                    }
+                    finally {
+                        List<File> written = new ArrayList<>(results.size());
+                        for (Result result : results) {
+                            if (result.error() == null && !result.skipped()) {
+                                written.add(result.yamlFile());
+                            }
+                        }
+                        LocalFileSystem.getInstance().refreshIoFiles(written);
+                        reportResults(project, results, System.currentTimeMillis() - startTime);
+                    }
+                }
+            }
+        );
+    }
+
+    /**
+     * Converts the bundles on a pool bounded by the number of processors, the pool threads run under the task indicator.
+     * Results are added in the order of {@code bundles}, canceled bundles are dropped.
+     */
+    private static void convertAll(
+        @Nonnull Project project,
+        @Nonnull List<VirtualFile> bundles,
+        boolean overwrite,
+        @Nonnull ProgressIndicator indicator,
+        @Nonnull List<Result> results
+    ) {
+        List<Callable<Result>> tasks = new ArrayList<>(bundles.size());
+        for (VirtualFile bundle : bundles) {
+            tasks.add(() -> ProgressManager.getInstance().runProcess(() -> convert(project, bundle, overwrite), indicator));
+        }
+        ForkJoinPool pool = new ForkJoinPool(Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            for (Future<Result> future : pool.invokeAll(tasks)) {
+                try {
+                    Result result = future.get();
+                    if (result != null) {
+                        results.add(result);
+                    }
+                }
+                catch (ExecutionException e) {
+                    LOG.error(e.getCause());
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProcessCanceledException(e);
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Nullable
+    private static Result convert(@Nonnull Project project, @Nonnull VirtualFile bundle, boolean overwrite) {
+        File yamlFile = new File(VirtualFileUtil.virtualToIoFile(bundle).getParentFile(), bundle.getNameWithoutExtension() + ".yaml");
+        long time = System.currentTimeMillis();
+        try {
+            ProgressManager.checkCanceled();
+            if (!overwrite && yamlFile.exists()) {
+                return new Result(bundle, yamlFile, 0, true, System.currentTimeMillis() - time, null);
+            }
+            Map<String, String> properties = ReadAction.nonBlocking(() -> {
+                if (!(PsiManager.getInstance(project).findFile(bundle) instanceof PropertiesFile propertiesFile)) {
+                    throw new IOException(bundle.getPresentableUrl() + " is not a properties file");
+                }
+                return readProperties(propertiesFile);
+            }).executeSynchronously();
+            write(properties, yamlFile.toPath(), overwrite);
+            return new Result(bundle, yamlFile, properties.size(), false, System.currentTimeMillis() - time, null);
+        }
+        catch (ProcessCanceledException e) {
+            return null;
+        }
+        catch (FileAlreadyExistsException e) {
+            return new Result(bundle, yamlFile, 0, true, System.currentTimeMillis() - time, null);
+        }
+        catch (Exception e) {
+            LOG.warn(e);
+            return new Result(bundle, yamlFile, 0, false, System.currentTimeMillis() - time, e);
+        }
+    }
+
+    /**
+     * @return unescaped texts by keys in the order of the file, of duplicated keys only the first one is kept
+     */
+    @Nonnull
+    @RequiredReadAction
+    public static Map<String, String> readProperties(@Nonnull PropertiesFile propertiesFile) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        for (IProperty property : propertiesFile.getProperties()) {
+            String key = property.getUnescapedKey();
+            if (key != null) {
+                properties.putIfAbsent(key, StringUtil.notNullize(property.getUnescapedValue()));
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Writes the properties one at a time in the same layout {@link LocalizeYamlUtil#create()} gives a whole map.
+     * The text goes to a temporary file next to the YAML file first, so a failure leaves no partial file behind.
+     *
+     * @throws FileAlreadyExistsException if the YAML file exists and is not overwritten, it is left untouched
+     */
+    public static void write(@Nonnull Map<String, String> properties, @Nonnull Path yamlFile, boolean overwrite) throws IOException {
+        Yaml yaml = LocalizeYamlUtil.create();
+        Path tempFile = Files.createTempFile(yamlFile.getParent(), yamlFile.getFileName().toString(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, String> entry : properties.entrySet()) {
+                    yaml.dump(Collections.singletonMap(entry.getKey(), Collections.singletonMap(LocalizeUtil.TEXT_KEY, entry.getValue())), writer);
+                }
+            }
+            if (overwrite) {
+                Files.move(tempFile, yamlFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            else {
+                Files.move(tempFile, yamlFile);
+            }
+        }
+        finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private static void reportResults(@Nonnull Project project, @Nonnull List<Result> results, long totalMillis) {
+        if (results.isEmpty()) {
+            return;
+        }
+        int converted = 0;
+        int skipped = 0;
+        int keys = 0;
+        int failed = 0;
+        StringJoiner details = new StringJoiner("<br>");
+        for (Result result : results) {
+            String name = result.bundle().getName();
+            if (result.error() != null) {
+                failed++;
+                details.add(name + " failed: " + ExceptionUtil.getMessage(result.error()));
+            }
+            else if (result.skipped()) {
+                skipped++;
+                details.add(name + " skipped: " + result.yamlFile().getName() + " already exists");
+            }
+            else {
+                converted++;
+                keys += result.keys();
+                details.add(String.format(
+                    "%s: %d keys to %s in %s",
+                    name,
+                    result.keys(),
+                    result.yamlFile().getName(),
+                    StringUtil.formatDuration(result.millis())
+                ));
+            }
+        }
+        String title = String.format(
+            "%d resource bundles converted (%d keys)%s%s in %s",
+            converted,
+            keys,
+            skipped == 0 ? "" : ", " + skipped + " skipped",
+            failed == 0 ? "" : ", " + failed + " failed",
+            StringUtil.formatDuration(totalMillis)
+        );
+        notify(project, title, details.toString(), failed > 0 ? NotificationType.ERROR : NotificationType.INFORMATION);
+    }
+
+    private static void notify(@Nonnull Project project, @Nonnull String title, @Nonnull String content, @Nonnull NotificationType type) {
+        Notifications.Bus.notify(new Notification(DevKitNotificationGroup.DEVKIT, title, content, type), project);
+    }
+}
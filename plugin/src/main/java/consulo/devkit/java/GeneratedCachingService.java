@@ -6,20 +6,43 @@ import consulo.annotation.access.RequiredReadAction;
 import consulo.annotation.component.ComponentScope;
 import consulo.annotation.component.ServiceAPI;
 import consulo.annotation.component.ServiceImpl;
+import consulo.devkit.localize.LocalizeUtil;
 import consulo.disposer.Disposable;
+import consulo.language.content.ProductionResourceContentFolderTypeProvider;
 import consulo.language.psi.PsiElement;
-import consulo.language.psi.PsiModificationTrackerListener;
+import consulo.language.psi.PsiFile;
+import consulo.language.psi.PsiManager;
+import consulo.language.psi.event.PsiTreeChangeAdapter;
+import consulo.language.psi.event.PsiTreeChangeEvent;
 import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.module.Module;
+import consulo.module.content.ModuleRootManager;
+import consulo.module.content.ProjectFileIndex;
+import consulo.module.content.layer.event.ModuleRootEvent;
+import consulo.module.content.layer.event.ModuleRootListener;
 import consulo.project.Project;
 import consulo.util.lang.ObjectUtil;
+import consulo.util.lang.StringUtil;
+import consulo.virtualFileSystem.VirtualFile;
+import consulo.virtualFileSystem.event.*;
+import consulo.virtualFileSystem.util.VirtualFileUtil;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 /**
+ * Caches the classes and packages generated for localize files.
+ * <p>
+ * A class is dropped when its {@code *Localize.yaml} file is edited, everything is dropped when localize files
+ * or directories of resource folders are created, deleted, moved or renamed and when project roots change.
+ *
  * @author VISTALL
  * @since 2025-10-04
  */
@@ -31,36 +54,153 @@ public class GeneratedCachingService implements Disposable {
 
     }
 
-    private Map<CachingKey, Object> myCachedClasses = new ConcurrentHashMap<>();
-    private Map<CachingKey, Object> myCachedPackages = new ConcurrentHashMap<>();
+    public record Statistics(long hits, long misses, int size) {
+
+    }
+
+    private static final String LOCALIZE_FILE_SUFFIX = "Localize.yaml";
+    private static final int MAX_CLASSES = 2048;
+    private static final int MAX_PACKAGES = 512;
+
+    private final LruCache myCachedClasses = new LruCache(MAX_CLASSES);
+    private final LruCache myCachedPackages = new LruCache(MAX_PACKAGES);
+
+    private final ProjectFileIndex myProjectFileIndex;
 
     @Inject
-    public GeneratedCachingService(Project project) {
-        project.getMessageBus().connect().subscribe(PsiModificationTrackerListener.class, this::dropCache);
+    public GeneratedCachingService(Project project, ProjectFileIndex projectFileIndex) {
+        myProjectFileIndex = projectFileIndex;
+
+        project.getApplication().getMessageBus().connect(this).subscribe(BulkFileListener.class, new BulkFileListener() {
+            @Override
+            public void before(@Nonnull List<? extends VFileEvent> events) {
+                for (VFileEvent event : events) {
+                    if (isRemoval(event) && affectsLocalizeFiles(event)) {
+                        dropCache();
+                        return;
+                    }
+                }
+            }
+
+            @Override
+            public void after(@Nonnull List<? extends VFileEvent> events) {
+                for (VFileEvent event : events) {
+                    if (event instanceof VFileContentChangeEvent) {
+                        dropLocalizeClass(event.getFile());
+                    }
+                    else if (affectsLocalizeFiles(event)) {
+                        dropCache();
+                        return;
+                    }
+                }
+            }
+        });
+
+        project.getMessageBus().connect(this).subscribe(ModuleRootListener.class, new ModuleRootListener() {
+            @Override
+            public void rootsChanged(ModuleRootEvent event) {
+                dropCache();
+            }
+        });
+
+        PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
+            @Override
+            public void childAdded(@Nonnull PsiTreeChangeEvent event) {
+                onPsiChange(event);
+            }
+
+            @Override
+            public void childRemoved(@Nonnull PsiTreeChangeEvent event) {
+                onPsiChange(event);
+            }
+
+            @Override
+            public void childReplaced(@Nonnull PsiTreeChangeEvent event) {
+                onPsiChange(event);
+            }
+
+            @Override
+            public void childMoved(@Nonnull PsiTreeChangeEvent event) {
+                onPsiChange(event);
+            }
+
+            @Override
+            public void childrenChanged(@Nonnull PsiTreeChangeEvent event) {
+                onPsiChange(event);
+            }
+        }, this);
     }
 
     public PsiClass getClass(String className, GlobalSearchScope searchScope, @RequiredReadAction Supplier<PsiClass> builder) {
-        return getOrBuild(myCachedClasses, className, searchScope, builder);
+        return myCachedClasses.getOrBuild(className, searchScope, builder);
     }
 
     public PsiJavaPackage getPackage(String className, GlobalSearchScope searchScope, @RequiredReadAction Supplier<PsiJavaPackage> builder) {
-        return getOrBuild(myCachedPackages, className, searchScope, builder);
+        return myCachedPackages.getOrBuild(className, searchScope, builder);
+    }
+
+    @Nonnull
+    public Statistics getClassStatistics() {
+        return myCachedClasses.getStatistics();
+    }
+
+    @Nonnull
+    public Statistics getPackageStatistics() {
+        return myCachedPackages.getStatistics();
     }
 
-    @SuppressWarnings("unchecked")
-    private static <T extends PsiElement> T getOrBuild(Map<CachingKey, Object> map,
-                                                       String qName,
-                                                       GlobalSearchScope searchScope,
-                                                       @RequiredReadAction Supplier<T> builder) {
-        CachingKey key = new CachingKey(qName, searchScope);
-        Object element = map.get(key);
-        if (element != null) {
-            return element == ObjectUtil.NULL ? null : (T) element;
+    private void onPsiChange(@Nonnull PsiTreeChangeEvent event) {
+        PsiFile file = event.getFile();
+        if (file != null) {
+            dropLocalizeClass(file.getVirtualFile());
         }
+    }
 
-        element = builder.get();
-        map.putIfAbsent(key, element == null ? ObjectUtil.NULL : element);
-        return (T) element;
+    private void dropLocalizeClass(@Nullable VirtualFile file) {
+        if (LocalizeUtil.isDefaultLocalizeFile(file)) {
+            myCachedClasses.remove(LocalizeUtil.getLocalizeClassId(file));
+        }
+    }
+
+    private static boolean isRemoval(@Nonnull VFileEvent event) {
+        return event instanceof VFileDeleteEvent || event instanceof VFileMoveEvent || event instanceof VFilePropertyChangeEvent;
+    }
+
+    /**
+     * Checks if the event adds or removes localize files, events for directories which can hold
+     * a {@code LOCALIZE-LIB} directory are assumed to do so. Property changes other than renames never do.
+     */
+    private boolean affectsLocalizeFiles(@Nonnull VFileEvent event) {
+        if (event instanceof VFilePropertyChangeEvent propertyChange && !VirtualFile.PROP_NAME.equals(propertyChange.getPropertyName())) {
+            return false;
+        }
+        if (event instanceof VFileContentChangeEvent) {
+            return false;
+        }
+        if (StringUtil.endsWith(event.getPath(), LOCALIZE_FILE_SUFFIX)) {
+            return true;
+        }
+        VirtualFile file = event.getFile();
+        return file != null && file.isValid() && file.isDirectory() && mayContainLocalizeFiles(file);
+    }
+
+    /**
+     * Localize files live in production resource folders, so only directories within one or containing one matter,
+     * not e.g. excluded build output or source folders.
+     */
+    private boolean mayContainLocalizeFiles(@Nonnull VirtualFile directory) {
+        Module module = myProjectFileIndex.getModuleForFile(directory);
+        if (module == null || !myProjectFileIndex.isInContent(directory)) {
+            return false;
+        }
+        VirtualFile[] resourceFolders = ModuleRootManager.getInstance(module)
+            .getContentFolderFiles(it -> it == ProductionResourceContentFolderTypeProvider.getInstance());
+        for (VirtualFile resourceFolder : resourceFolders) {
+            if (VirtualFileUtil.isAncestor(resourceFolder, directory, false) || VirtualFileUtil.isAncestor(directory, resourceFolder, true)) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private void dropCache() {
@@ -72,4 +212,60 @@ public class GeneratedCachingService implements Disposable {
     public void dispose() {
         dropCache();
     }
+
+    /**
+     * Access-ordered map limited to a number of entries, elements are built outside the lock.
+     */
+    private static class LruCache {
+        private final Map<CachingKey, Object> myMap;
+        private final AtomicLong myHits = new AtomicLong();
+        private final AtomicLong myMisses = new AtomicLong();
+
+        LruCache(int maxSize) {
+            myMap = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<CachingKey, Object> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        <T extends PsiElement> T getOrBuild(String qName, GlobalSearchScope searchScope, @RequiredReadAction Supplier<T> builder) {
+            CachingKey key = new CachingKey(qName, searchScope);
+            Object element;
+            synchronized (myMap) {
+                element = myMap.get(key);
+            }
+            if (element != null && (element == ObjectUtil.NULL || ((PsiElement) element).isValid())) {
+                myHits.incrementAndGet();
+                return element == ObjectUtil.NULL ? null : (T) element;
+            }
+
+            myMisses.incrementAndGet();
+            element = builder.get();
+            synchronized (myMap) {
+                myMap.put(key, element == null ? ObjectUtil.NULL : element);
+            }
+            return (T) element;
+        }
+
+        void remove(String qName) {
+            synchronized (myMap) {
+                myMap.keySet().removeIf(key -> key.qName().equals(qName));
+            }
+        }
+
+        void clear() {
+            synchronized (myMap) {
+                myMap.clear();
+            }
+        }
+
+        Statistics getStatistics() {
+            synchronized (myMap) {
+                return new Statistics(myHits.get(), myMisses.get(), myMap.size());
+            }
+        }
+    }
 }
@@ -32,6 +32,7 @@ import java.util.Collection;
 @ExtensionImpl
 public class GeneratedClassesPsiElementFinder extends PsiElementFinder {
     private static final String SUFFIX = ".localize";
+    private static final String CLASS_SUFFIX = "Localize";
 
     private final Project myProject;
     private final FileBasedIndex myFileBasedIndex;
@@ -59,6 +60,11 @@ public class GeneratedClassesPsiElementFinder extends PsiElementFinder {
     @Override
     @RequiredReadAction
     public PsiClass findClass(@Nonnull String className, @Nonnull GlobalSearchScope globalSearchScope) {
+        if (!isLocalizeClassName(className)) {
+            // every unresolved class name comes here, misses must not evict the generated classes from the cache
+            return null;
+        }
+
         return myGeneratedCachingService.getClass(className, globalSearchScope, () -> {
             Collection<VirtualFile> containingFiles = myFileBasedIndex.getContainingFiles(
                 LocalizeFileIndexExtension.INDEX,
@@ -80,6 +86,13 @@ public class GeneratedClassesPsiElementFinder extends PsiElementFinder {
         });
     }
 
+    /**
+     * @see consulo.devkit.localize.LocalizeUtil#getLocalizeClassId
+     */
+    private static boolean isLocalizeClassName(@Nonnull String className) {
+        return className.endsWith(CLASS_SUFFIX) && StringUtil.getPackageName(className).endsWith(SUFFIX);
+    }
+
     @Nonnull
     @Override
     @RequiredReadAction
@@ -11,7 +11,6 @@ import consulo.language.editor.inlay.*;
 import consulo.language.pattern.PsiElementPattern;
 import consulo.language.pattern.StandardPatterns;
 import consulo.language.psi.PsiFile;
-import consulo.language.psi.PsiManager;
 import consulo.language.psi.stub.FileBasedIndex;
 import consulo.localize.LocalizeValue;
 import consulo.project.Project;
@@ -54,12 +53,7 @@ public class LocalizeInlayProvider implements DeclarativeInlayHintsProvider {
             return null;
         }
 
-        PsiFile file = ReadAction.compute(() -> PsiManager.getInstance(project).findFile(pair.getKey()));
-        if (!(file instanceof YAMLFile otherYamlState)) {
-            return null;
-        }
-
-        Map<String, String> data = ReadAction.compute(() -> LocalizeFoldingBuilder.buildLocalizeCache(otherYamlState));
+        Map<String, String> data = ReadAction.compute(() -> LocalizeFoldingBuilder.getIndexedLocalizeTexts(project, pair.getKey()));
 
         Document document = editor.getDocument();
 
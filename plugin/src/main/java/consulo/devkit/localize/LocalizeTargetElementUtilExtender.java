@@ -7,6 +7,8 @@ import consulo.devkit.localize.folding.LocalizeFoldingBuilder;
 import consulo.devkit.localize.folding.LocalizeResolveInfo;
 import consulo.language.editor.TargetElementUtilExtender;
 import consulo.language.psi.PsiElement;
+import consulo.language.psi.PsiManager;
+import consulo.language.psi.util.PsiTreeUtil;
 import consulo.util.lang.StringUtil;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
@@ -31,9 +33,14 @@ public class LocalizeTargetElementUtilExtender implements TargetElementUtilExten
         if (navElement instanceof PsiMethod method) {
             LocalizeResolveInfo resolveInfo =
                 LocalizeFoldingBuilder.findLocalizeInfo(navElement, method.getContainingClass(), method.getName());
-            if (resolveInfo != null) {
-                YAMLFile file = resolveInfo.file();
+            if (resolveInfo != null
+                && PsiManager.getInstance(navElement.getProject()).findFile(resolveInfo.file()) instanceof YAMLFile file) {
+                YAMLKeyValue indexed = PsiTreeUtil.getParentOfType(file.findElementAt(resolveInfo.offset()), YAMLKeyValue.class);
+                if (indexed != null && StringUtil.equalsIgnoreCase(indexed.getKeyText(), resolveInfo.key())) {
+                    return indexed;
+                }
 
+                // the indexed offset is stale until unsaved changes are reindexed
                 List<YAMLDocument> documents = file.getDocuments();
                 for (YAMLDocument document : documents) {
                     if (document.getTopLevelValue() instanceof YAMLMapping topLevelMapping) {
@@ -43,9 +43,7 @@ public class LocalizeUtil {
 
         VirtualFile file = element.getContainingFile().getVirtualFile();
 
-        String fileName = file.getNameWithoutExtension();
-        String packageName = StringUtil.getPackageName(fileName);
-        String className = packageName + ".localize." + StringUtil.getShortName(fileName);
+        String className = getLocalizeClassId(file);
 
         Project project = element.getProject();
         PsiClass localizeClass = JavaPsiFacade.getInstance(project).findClass(className, element.getResolveScope());
@@ -108,9 +106,7 @@ public class LocalizeUtil {
 
     @Nullable
     public static Pair<VirtualFile, String> findOtherLocaleFile(Project project, VirtualFile file, FileBasedIndex fileBasedIndex) {
-        String fileName = file.getNameWithoutExtension();
-        String packageName = StringUtil.getPackageName(fileName);
-        String id = packageName + ".localize." + StringUtil.getShortName(fileName);
+        String id = getLocalizeClassId(file);
 
         Collection<VirtualFile> containingFiles = fileBasedIndex.getContainingFiles(
             LocalizeFileIndexExtension.INDEX,
@@ -129,6 +125,30 @@ public class LocalizeUtil {
         return Pair.create(otherLocalizeFile, id);
     }
 
+    /**
+     * @return qualified name of the localize class generated for the file, e.g. {@code consulo.devkit.localize.DevKitLocalize}
+     * for {@code consulo.devkit.DevKitLocalize.yaml}
+     */
+    public static String getLocalizeClassId(VirtualFile file) {
+        String fileName = file.getNameWithoutExtension();
+        String packageName = StringUtil.getPackageName(fileName);
+        return packageName + ".localize." + StringUtil.getShortName(fileName);
+    }
+
+    /**
+     * Counts the arguments of a localize text the way {@code MessageFormat.getFormatsByArgumentIndex()} does,
+     * i.e. the highest top-level argument number plus one, without parsing the text into a {@code MessageFormat}.
+     *
+     * @return number of arguments the localize text expects, zero if the text is not a valid message format
+     * or uses named arguments
+     */
+    public static int getArgumentCount(@Nullable String text) {
+        if (text == null || text.indexOf('{') < 0) {
+            return 0;
+        }
+        return MessageFormatScanner.getArgumentCount(text);
+    }
+
     public static String formatMethodName(Project project, String key) {
         return normalizeName(project, capitalizeByDot(key));
     }
@@ -149,7 +169,27 @@ public class LocalizeUtil {
         return builder.toString();
     }
 
+    /**
+     * Project independent id of a localize method, equal for a key and for any call of the method generated for it.
+     */
+    public static String getMethodUsageId(String methodName) {
+        return StringUtil.trimStart(methodName, "_").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @see #getMethodUsageId
+     */
+    public static String getKeyUsageId(String key) {
+        String text = capitalizeByDot(key);
+        return text.isEmpty() ? text : getMethodUsageId(replaceDigitPrefix(text));
+    }
+
     private static String normalizeName(Project project, String text) {
+        char c = text.charAt(0);
+        return c == '0' || c == '1' || c == '2' ? replaceDigitPrefix(text) : escapeString(project, text);
+    }
+
+    private static String replaceDigitPrefix(String text) {
         char c = text.charAt(0);
         if (c == '0') {
             return ZERO_PREFIX + text.substring(1, text.length());
@@ -160,7 +200,7 @@ public class LocalizeUtil {
         else if (c == '2') {
             return TWO_PREFIX + text.substring(1, text.length());
         }
-        return escapeString(project, text);
+        return text;
     }
 
     private static String escapeString(Project project, String name) {
@@ -0,0 +1,400 @@
+package consulo.devkit.localize;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.Locale;
+
+/**
+ * Validates a localize text with the syntax of ICU {@code MessagePattern} in the default {@code DOUBLE_OPTIONAL}
+ * apostrophe mode and counts its top-level arguments, without building parts or formats.
+ * <p>
+ * Simple argument types are checked against the types {@code MessageFormat} knows, their styles are not validated.
+ * Scan methods return the offset after the scanned part or -1 if the text is not a valid message format.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+class MessageFormatScanner {
+    private static final int ARG_NAME_NOT_NUMBER = -1;
+    private static final int ARG_NAME_NOT_VALID = -2;
+
+    private enum ArgType {
+        NONE,
+        SIMPLE,
+        CHOICE,
+        PLURAL,
+        SELECT,
+        SELECTORDINAL;
+
+        boolean hasPluralStyle() {
+            return this == PLURAL || this == SELECTORDINAL;
+        }
+    }
+
+    private final String myText;
+    private int myCount;
+    private boolean myNamed;
+
+    private MessageFormatScanner(@Nonnull String text) {
+        myText = text;
+    }
+
+    /**
+     * @return what {@code new MessageFormat(text).getFormatsByArgumentIndex().length} returns, zero where it throws:
+     * for invalid texts and texts with named arguments
+     */
+    static int getArgumentCount(@Nonnull String text) {
+        MessageFormatScanner scanner = new MessageFormatScanner(text);
+        return scanner.scanMessage(0, 0, ArgType.NONE) < 0 || scanner.myNamed ? 0 : scanner.myCount;
+    }
+
+    /**
+     * @return for a choice sub-message the offset of its terminating {@code |} or {@code }}, otherwise the offset after the message
+     */
+    private int scanMessage(int index, int nestingLevel, @Nonnull ArgType parentType) {
+        int length = myText.length();
+        while (index < length) {
+            char c = myText.charAt(index++);
+            if (c == '\'') {
+                if (index == length) {
+                    break;
+                }
+                char next = myText.charAt(index);
+                if (next == '\'') {
+                    index++;
+                }
+                else if (next == '{' || next == '}'
+                    || parentType == ArgType.CHOICE && next == '|'
+                    || parentType.hasPluralStyle() && next == '#') {
+                    index = skipQuoted(index);
+                }
+            }
+            else if (c == '{') {
+                index = scanArgument(index, nestingLevel);
+                if (index < 0) {
+                    return -1;
+                }
+            }
+            else if (nestingLevel > 0 && c == '}' || parentType == ArgType.CHOICE && c == '|') {
+                return parentType == ArgType.CHOICE ? index - 1 : index;
+            }
+        }
+        return nestingLevel > 0 ? -1 : length;
+    }
+
+    /**
+     * @param index offset of the first quoted character, a quote reaching the end of the text is allowed
+     */
+    private int skipQuoted(int index) {
+        while (true) {
+            index = myText.indexOf('\'', index + 1);
+            if (index < 0) {
+                return myText.length();
+            }
+            if (index + 1 < myText.length() && myText.charAt(index + 1) == '\'') {
+                index++;
+            }
+            else {
+                return index + 1;
+            }
+        }
+    }
+
+    /**
+     * @param index offset after the opening brace
+     */
+    private int scanArgument(int index, int nestingLevel) {
+        int length = myText.length();
+        index = skipWhiteSpace(index);
+        int nameStart = index;
+        index = skipIdentifier(index);
+        int number = parseArgumentNumber(nameStart, index);
+        if (number == ARG_NAME_NOT_VALID) {
+            return -1;
+        }
+        if (number == ARG_NAME_NOT_NUMBER) {
+            myNamed = true;
+        }
+        else if (nestingLevel == 0) {
+            myCount = Math.max(myCount, number + 1);
+        }
+
+        index = skipWhiteSpace(index);
+        if (index == length) {
+            return -1;
+        }
+        char c = myText.charAt(index);
+        if (c == '}') {
+            return index + 1;
+        }
+        if (c != ',') {
+            return -1;
+        }
+
+        int typeStart = index = skipWhiteSpace(index + 1);
+        while (index < length && isArgTypeChar(myText.charAt(index))) {
+            index++;
+        }
+        int typeEnd = index;
+        index = skipWhiteSpace(index);
+        if (index == length || typeStart == typeEnd || (c = myText.charAt(index)) != ',' && c != '}') {
+            return -1;
+        }
+        ArgType type = getArgType(typeStart, typeEnd);
+        if (type == null) {
+            return -1;
+        }
+        if (c == '}') {
+            return type == ArgType.SIMPLE ? index + 1 : -1;
+        }
+        index = switch (type) {
+            case SIMPLE -> scanSimpleStyle(index + 1);
+            case CHOICE -> scanChoiceStyle(index + 1, nestingLevel);
+            default -> scanPluralOrSelectStyle(type, index + 1, nestingLevel);
+        };
+        return index < 0 ? -1 : index + 1;
+    }
+
+    @Nullable
+    private ArgType getArgType(int start, int end) {
+        return switch (myText.substring(start, end).toLowerCase(Locale.ROOT)) {
+            case "choice" -> ArgType.CHOICE;
+            case "plural" -> ArgType.PLURAL;
+            case "select" -> ArgType.SELECT;
+            case "selectordinal" -> ArgType.SELECTORDINAL;
+            case "number", "date", "time", "spellout", "ordinal", "duration" -> ArgType.SIMPLE;
+            default -> null;
+        };
+    }
+
+    /**
+     * @return offset of the brace closing the argument
+     */
+    private int scanSimpleStyle(int index) {
+        int nestedBraces = 0;
+        while (index < myText.length()) {
+            char c = myText.charAt(index++);
+            if (c == '\'') {
+                index = myText.indexOf('\'', index);
+                if (index < 0) {
+                    return -1;
+                }
+                index++;
+            }
+            else if (c == '{') {
+                nestedBraces++;
+            }
+            else if (c == '}') {
+                if (nestedBraces == 0) {
+                    return index - 1;
+                }
+                nestedBraces--;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return offset of the brace closing the argument
+     */
+    private int scanChoiceStyle(int index, int nestingLevel) {
+        int length = myText.length();
+        index = skipWhiteSpace(index);
+        if (index == length || myText.charAt(index) == '}') {
+            return -1;
+        }
+        while (true) {
+            int numberStart = index;
+            index = skipDouble(index);
+            if (index == numberStart || !isValidNumber(numberStart, index, true)) {
+                return -1;
+            }
+            index = skipWhiteSpace(index);
+            if (index == length) {
+                return -1;
+            }
+            char c = myText.charAt(index);
+            if (c != '#' && c != '<' && c != '\u2264') {
+                return -1;
+            }
+            index = scanMessage(index + 1, nestingLevel + 1, ArgType.CHOICE);
+            if (index < 0) {
+                return -1;
+            }
+            if (myText.charAt(index) == '}') {
+                return index;
+            }
+            index = skipWhiteSpace(index + 1);
+        }
+    }
+
+    /**
+     * @return offset of the brace closing the argument
+     */
+    private int scanPluralOrSelectStyle(@Nonnull ArgType type, int index, int nestingLevel) {
+        int length = myText.length();
+        boolean empty = true;
+        boolean hasOther = false;
+        while (true) {
+            index = skipWhiteSpace(index);
+            if (index == length) {
+                return -1;
+            }
+            if (myText.charAt(index) == '}') {
+                return hasOther ? index : -1;
+            }
+            int selectorStart = index;
+            if (type.hasPluralStyle() && myText.charAt(index) == '=') {
+                index = skipDouble(index + 1);
+                if (index == selectorStart + 1 || !isValidNumber(selectorStart + 1, index, false)) {
+                    return -1;
+                }
+            }
+            else {
+                index = skipIdentifier(index);
+                int selectorLength = index - selectorStart;
+                if (selectorLength == 0) {
+                    return -1;
+                }
+                if (type.hasPluralStyle() && selectorLength == 6 && myText.startsWith("offset:", selectorStart)) {
+                    // the offset precedes all the selectors and has no message
+                    if (!empty) {
+                        return -1;
+                    }
+                    int valueStart = skipWhiteSpace(index + 1);
+                    index = skipDouble(valueStart);
+                    if (index == valueStart || !isValidNumber(valueStart, index, false)) {
+                        return -1;
+                    }
+                    empty = false;
+                    continue;
+                }
+                // MessagePattern takes any prefix of "other" for it
+                if ("other".regionMatches(0, myText, selectorStart, selectorLength)) {
+                    hasOther = true;
+                }
+            }
+            index = skipWhiteSpace(index);
+            if (index == length || myText.charAt(index) != '{') {
+                return -1;
+            }
+            index = scanMessage(index + 1, nestingLevel + 1, type);
+            if (index < 0) {
+                return -1;
+            }
+            empty = false;
+        }
+    }
+
+    private int parseArgumentNumber(int start, int end) {
+        if (start >= end) {
+            return ARG_NAME_NOT_VALID;
+        }
+        int number;
+        boolean badNumber;
+        char c = myText.charAt(start++);
+        if (c == '0') {
+            if (start == end) {
+                return 0;
+            }
+            // leading zero
+            number = 0;
+            badNumber = true;
+        }
+        else if ('1' <= c && c <= '9') {
+            number = c - '0';
+            badNumber = false;
+        }
+        else {
+            return ARG_NAME_NOT_NUMBER;
+        }
+        while (start < end) {
+            c = myText.charAt(start++);
+            if (c < '0' || c > '9') {
+                return ARG_NAME_NOT_NUMBER;
+            }
+            if (number >= Integer.MAX_VALUE / 10) {
+                badNumber = true;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return badNumber ? ARG_NAME_NOT_VALID : number;
+    }
+
+    private boolean isValidNumber(int start, int end, boolean allowInfinity) {
+        int index = start;
+        char c = myText.charAt(index);
+        if (c == '-' || c == '+') {
+            if (++index == end) {
+                return false;
+            }
+            c = myText.charAt(index);
+        }
+        if (c == '\u221e') {
+            return allowInfinity && index + 1 == end;
+        }
+        try {
+            Double.parseDouble(myText.substring(start, end));
+            return true;
+        }
+        catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private int skipDouble(int index) {
+        while (index < myText.length()) {
+            char c = myText.charAt(index);
+            if (c < '0' && "+-.".indexOf(c) < 0 || c > '9' && c != 'e' && c != 'E' && c != '\u221e') {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    private int skipWhiteSpace(int index) {
+        while (index < myText.length() && isWhiteSpace(myText.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private int skipIdentifier(int index) {
+        while (index < myText.length()) {
+            char c = myText.charAt(index);
+            if (isWhiteSpace(c) || isSyntax(c)) {
+                break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isArgTypeChar(char c) {
+        return 'a' <= c && c <= 'z' || 'A' <= c && c <= 'Z';
+    }
+
+    /**
+     * Unicode {@code Pattern_White_Space}
+     */
+    private static boolean isWhiteSpace(char c) {
+        return c == ' ' || '\t' <= c && c <= '\r' || c == '\u0085' || c == '\u200e' || c == '\u200f' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * Unicode {@code Pattern_Syntax}
+     */
+    private static boolean isSyntax(char c) {
+        if (c < 0x80) {
+            return '!' <= c && c <= '/' || ':' <= c && c <= '@' || '[' <= c && c <= '^' || c == '`' || '{' <= c && c <= '~';
+        }
+        return '\u00a1' <= c && c <= '\u00a7' || c == '\u00a9' || c == '\u00ab' || c == '\u00ac' || c == '\u00ae'
+            || c == '\u00b0' || c == '\u00b1' || c == '\u00b6' || c == '\u00bb' || c == '\u00bf' || c == '\u00d7' || c == '\u00f7'
+            || '\u2010' <= c && c <= '\u2027' || '\u2030' <= c && c <= '\u203e' || '\u2041' <= c && c <= '\u2053'
+            || '\u2055' <= c && c <= '\u205e' || '\u2190' <= c && c <= '\u245f' || '\u2500' <= c && c <= '\u2775'
+            || '\u2794' <= c && c <= '\u2bff' || '\u2e00' <= c && c <= '\u2e7f' || '\u3001' <= c && c <= '\u3003'
+            || '\u3008' <= c && c <= '\u3020' || c == '\u3030' || c == '\ufd3e' || c == '\ufd3f' || c == '\ufe45' || c == '\ufe46';
+    }
+}
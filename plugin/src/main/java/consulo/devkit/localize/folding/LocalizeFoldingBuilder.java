@@ -4,9 +4,9 @@ import com.intellij.java.language.JavaLanguage;
 import com.intellij.java.language.psi.*;
 import consulo.annotation.access.RequiredReadAction;
 import consulo.annotation.component.ExtensionImpl;
-import consulo.application.util.CachedValueProvider;
 import consulo.application.util.matcher.NameUtil;
-import consulo.devkit.localize.index.LocalizeFileIndexExtension;
+import consulo.devkit.localize.index.LocalizeKeyIndexExtension;
+import consulo.devkit.localize.index.LocalizeKeyInfo;
 import consulo.devkit.localize.java.LocalizeMethodBuilder;
 import consulo.document.Document;
 import consulo.language.Language;
@@ -15,18 +15,15 @@ import consulo.language.editor.folding.FoldingBuilder;
 import consulo.language.editor.folding.FoldingDescriptor;
 import consulo.language.editor.folding.NamedFoldingDescriptor;
 import consulo.language.psi.PsiElement;
-import consulo.language.psi.PsiFile;
-import consulo.language.psi.PsiManager;
 import consulo.language.psi.stub.FileBasedIndex;
-import consulo.language.psi.util.LanguageCachedValueUtil;
-import consulo.util.collection.ContainerUtil;
+import consulo.project.Project;
 import consulo.util.collection.HashingStrategy;
 import consulo.util.collection.Maps;
+import consulo.util.lang.ref.SimpleReference;
 import consulo.virtualFileSystem.VirtualFile;
-import org.jetbrains.yaml.psi.*;
-
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
+
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -91,9 +88,7 @@ public class LocalizeFoldingBuilder implements FoldingBuilder {
                 && args[0] instanceof PsiReferenceExpression fileNameExpr
                 && fileNameExpr.resolve() instanceof PsiField fileNameField) {
 
-                Map<String, String> map = findLocalizeMap(methodExpr, fileNameField.getContainingClass());
-
-                return map == null ? null : map.get(key);
+                return findLocalizeText(methodExpr, fileNameField.getContainingClass(), key);
             }
         }
 
@@ -160,81 +155,56 @@ public class LocalizeFoldingBuilder implements FoldingBuilder {
     @Nullable
     @RequiredReadAction
     public static LocalizeResolveInfo findLocalizeInfo(PsiElement scope, PsiElement possibleClass, String memberName) {
-        YAMLFile yamlFile = findYAMLFile(scope, possibleClass);
-        if (yamlFile == null) {
-            return null;
-        }
-
-        Map<String, String> map = buildLocalizeCache(yamlFile);
-
-        String key = replaceCamelCase(memberName);
-        String value = map.get(key);
-
-        return value == null ? null : new LocalizeResolveInfo(yamlFile, key, value);
+        String qualifiedName = getQualifiedName(possibleClass);
+        return qualifiedName == null ? null : findLocalizeInfoByKey(scope, qualifiedName, replaceCamelCase(memberName));
     }
 
     @Nullable
     @RequiredReadAction
-    private static Map<String, String> findLocalizeMap(PsiElement scope, PsiElement possibleClass) {
-        YAMLFile yamlFile = findYAMLFile(scope, possibleClass);
-        return yamlFile == null ? null : buildLocalizeCache(yamlFile);
-    }
-
-    @Nullable
-    @RequiredReadAction
-    private static YAMLFile findYAMLFile(PsiElement scope, PsiElement possibleClass) {
-        if (!(possibleClass instanceof PsiClass psiClass)) {
-            return null;
-        }
-
-        String qualifiedName = psiClass.getQualifiedName();
-
+    private static String findLocalizeText(PsiElement scope, PsiElement possibleClass, String key) {
+        String qualifiedName = getQualifiedName(possibleClass);
         if (qualifiedName == null) {
             return null;
         }
 
-        Collection<VirtualFile> containingFiles = FileBasedIndex.getInstance().getContainingFiles(
-            LocalizeFileIndexExtension.INDEX,
-            qualifiedName,
+        LocalizeResolveInfo info = findLocalizeInfoByKey(scope, qualifiedName, key);
+        return info == null ? null : info.value();
+    }
+
+    @Nullable
+    @RequiredReadAction
+    private static LocalizeResolveInfo findLocalizeInfoByKey(PsiElement scope, String qualifiedName, String key) {
+        SimpleReference<LocalizeResolveInfo> result = SimpleReference.create();
+        FileBasedIndex.getInstance().processValues(
+            LocalizeKeyIndexExtension.INDEX,
+            LocalizeKeyIndexExtension.getIndexKey(qualifiedName, key),
+            null,
+            (file, info) -> {
+                result.set(new LocalizeResolveInfo(file, info.key(), info.text(), info.offset()));
+                return false;
+            },
             scope.getResolveScope()
         );
+        return result.get();
+    }
 
-        if (containingFiles.isEmpty()) {
-            return null;
-        }
-
-        VirtualFile item = ContainerUtil.getFirstItem(containingFiles);
-        assert item != null;
-
-        PsiFile file = PsiManager.getInstance(scope.getProject()).findFile(item);
-        return file instanceof YAMLFile yamlFile ? yamlFile : null;
+    @Nullable
+    private static String getQualifiedName(PsiElement possibleClass) {
+        return possibleClass instanceof PsiClass psiClass ? psiClass.getQualifiedName() : null;
     }
 
-    public static Map<String, String> buildLocalizeCache(YAMLFile yamlFile) {
-        return LanguageCachedValueUtil.getCachedValue(
-            yamlFile,
-            () -> {
-                List<YAMLDocument> documents = yamlFile.getDocuments();
-
-                Map<String, String> map = Maps.newHashMap(HashingStrategy.caseInsensitive());
-
-                for (YAMLDocument document : documents) {
-                    if (document.getTopLevelValue() instanceof YAMLMapping topLevelMapping) {
-                        for (YAMLKeyValue value : topLevelMapping.getKeyValues()) {
-                            if (value.getValue() instanceof YAMLMapping valueMapping) {
-                                YAMLKeyValue text = valueMapping.getKeyValueByKey("text");
-                                if (text != null) {
-                                    String key = value.getKeyText();
-                                    map.put(key, text.getValueText());
-                                }
-                            }
-                        }
-                    }
-                }
+    /**
+     * Texts of all the keys of a default locale file, read from {@link LocalizeKeyIndexExtension} without loading the file PSI.
+     */
+    @Nonnull
+    public static Map<String, String> getIndexedLocalizeTexts(@Nonnull Project project, @Nonnull VirtualFile file) {
+        Map<String, LocalizeKeyInfo> data = FileBasedIndex.getInstance().getFileData(LocalizeKeyIndexExtension.INDEX, file, project);
 
-                return CachedValueProvider.Result.create(map, yamlFile);
-            }
-        );
+        Map<String, String> map = Maps.newHashMap(HashingStrategy.caseInsensitive());
+        for (LocalizeKeyInfo info : data.values()) {
+            map.put(info.key(), info.text());
+        }
+        return map;
     }
 
     private static String replaceCamelCase(String camelCaseString) {
@@ -1,10 +1,10 @@
 package consulo.devkit.localize.folding;
 
-import org.jetbrains.yaml.psi.YAMLFile;
+import consulo.virtualFileSystem.VirtualFile;
 
 /**
  * @author VISTALL
  * @since 2024-09-08
  */
-public record LocalizeResolveInfo(YAMLFile file, String key, String value) {
+public record LocalizeResolveInfo(VirtualFile file, String key, String value, int offset) {
 }
@@ -1,8 +1,8 @@
 package consulo.devkit.localize.index;
 
 import consulo.annotation.component.ExtensionImpl;
+import consulo.devkit.localize.LocalizeUtil;
 import consulo.index.io.ID;
-import consulo.util.lang.StringUtil;
 import consulo.virtualFileSystem.VirtualFile;
 import jakarta.annotation.Nonnull;
 
@@ -22,9 +22,6 @@ public class LocalizeFileIndexExtension extends BaseLocalizeFileIndexExtension {
 
     @Override
     protected String getFileId(VirtualFile file) {
-        String fileName = file.getNameWithoutExtension();
-        String packageName = StringUtil.getPackageName(fileName);
-        String id = packageName + ".localize." + StringUtil.getShortName(fileName);
-        return id;
+        return LocalizeUtil.getLocalizeClassId(file);
     }
 }
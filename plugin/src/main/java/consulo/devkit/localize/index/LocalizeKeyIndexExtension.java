@@ -0,0 +1,135 @@
+package consulo.devkit.localize.index;
+
+import consulo.annotation.component.ExtensionImpl;
+import consulo.devkit.localize.LocalizeUtil;
+import consulo.index.io.DataIndexer;
+import consulo.index.io.EnumeratorStringDescriptor;
+import consulo.index.io.ID;
+import consulo.index.io.KeyDescriptor;
+import consulo.index.io.data.DataExternalizer;
+import consulo.index.io.data.DataInputOutputUtil;
+import consulo.index.io.data.IOUtil;
+import consulo.language.psi.stub.FileBasedIndex;
+import consulo.language.psi.stub.FileBasedIndexExtension;
+import consulo.language.psi.stub.FileContent;
+import consulo.util.lang.StringUtil;
+import consulo.virtualFileSystem.VirtualFile;
+import jakarta.annotation.Nonnull;
+import org.jetbrains.yaml.YAMLFileType;
+import org.jetbrains.yaml.psi.YAMLDocument;
+import org.jetbrains.yaml.psi.YAMLFile;
+import org.jetbrains.yaml.psi.YAMLKeyValue;
+import org.jetbrains.yaml.psi.YAMLMapping;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Maps localize class id and key of default locale files to the key text, so resolve, folding and inlays
+ * do not need to load the YAML PSI of files which are not open.
+ * Keys are case-insensitive, see {@link #getIndexKey}.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+@ExtensionImpl
+public class LocalizeKeyIndexExtension extends FileBasedIndexExtension<String, LocalizeKeyInfo> {
+    public static final ID<String, LocalizeKeyInfo> INDEX = ID.create("consulo.localize.key.index");
+
+    private static final char SEPARATOR = '#';
+
+    private static final DataExternalizer<LocalizeKeyInfo> EXTERNALIZER = new DataExternalizer<>() {
+        @Override
+        public void save(@Nonnull DataOutput out, LocalizeKeyInfo value) throws IOException {
+            IOUtil.writeUTF(out, value.key());
+            IOUtil.writeUTF(out, value.text());
+            DataInputOutputUtil.writeINT(out, value.argumentCount());
+            DataInputOutputUtil.writeINT(out, value.offset());
+        }
+
+        @Override
+        public LocalizeKeyInfo read(@Nonnull DataInput in) throws IOException {
+            String key = IOUtil.readUTF(in);
+            String text = IOUtil.readUTF(in);
+            int argumentCount = DataInputOutputUtil.readINT(in);
+            int offset = DataInputOutputUtil.readINT(in);
+            return new LocalizeKeyInfo(key, text, argumentCount, offset);
+        }
+    };
+
+    @Nonnull
+    public static String getIndexKey(@Nonnull String localizeClassId, @Nonnull String key) {
+        return localizeClassId + SEPARATOR + key.toLowerCase(Locale.ROOT);
+    }
+
+    @Nonnull
+    @Override
+    public ID<String, LocalizeKeyInfo> getName() {
+        return INDEX;
+    }
+
+    @Nonnull
+    @Override
+    public DataIndexer<String, LocalizeKeyInfo, FileContent> getIndexer() {
+        return fileContent -> {
+            VirtualFile file = fileContent.getFile();
+            if (!LocalizeUtil.isDefaultLocalizeFile(file) || !(fileContent.getPsiFile() instanceof YAMLFile yamlFile)) {
+                return Map.of();
+            }
+
+            String localizeClassId = LocalizeUtil.getLocalizeClassId(file);
+
+            Map<String, LocalizeKeyInfo> result = new HashMap<>();
+            for (YAMLDocument document : yamlFile.getDocuments()) {
+                if (document.getTopLevelValue() instanceof YAMLMapping topLevelMapping) {
+                    for (YAMLKeyValue value : topLevelMapping.getKeyValues()) {
+                        if (value.getValue() instanceof YAMLMapping valueMapping) {
+                            YAMLKeyValue text = valueMapping.getKeyValueByKey(LocalizeUtil.TEXT_KEY);
+                            if (text != null) {
+                                String key = value.getKeyText();
+                                String valueText = StringUtil.notNullize(text.getValueText());
+                                result.putIfAbsent(
+                                    getIndexKey(localizeClassId, key),
+                                    new LocalizeKeyInfo(key, valueText, LocalizeUtil.getArgumentCount(valueText), value.getTextOffset())
+                                );
+                            }
+                        }
+                    }
+                }
+            }
+            return result;
+        };
+    }
+
+    @Nonnull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @Nonnull
+    @Override
+    public DataExternalizer<LocalizeKeyInfo> getValueExternalizer() {
+        return EXTERNALIZER;
+    }
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @Nonnull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return (project, file) -> file.getFileType() == YAMLFileType.YML && LocalizeUtil.isDefaultLocalizeFile(file);
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+}
@@ -0,0 +1,14 @@
+package consulo.devkit.localize.index;
+
+/**
+ * Indexed localize key of a default locale file.
+ *
+ * @param key           key as written in the file
+ * @param text          localize text, empty if the key has no text
+ * @param argumentCount number of arguments of the text
+ * @param offset        offset of the key in the file
+ * @author agent
+ * @since 2026-10-18
+ */
+public record LocalizeKeyInfo(String key, String text, int argumentCount, int offset) {
+}
@@ -0,0 +1,189 @@
+package consulo.devkit.localize.index;
+
+import com.intellij.java.language.impl.JavaFileType;
+import com.intellij.java.language.psi.*;
+import consulo.annotation.component.ExtensionImpl;
+import consulo.devkit.localize.LocalizeUtil;
+import consulo.index.io.DataIndexer;
+import consulo.index.io.EnumeratorStringDescriptor;
+import consulo.index.io.ID;
+import consulo.index.io.KeyDescriptor;
+import consulo.index.io.VoidDataExternalizer;
+import consulo.index.io.data.DataExternalizer;
+import consulo.language.psi.stub.FileBasedIndex;
+import consulo.language.psi.stub.FileBasedIndexExtension;
+import consulo.language.psi.stub.FileContent;
+import consulo.util.lang.StringUtil;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.*;
+
+/**
+ * Maps localize class short name and key to the Java files using it, either as a {@code XxxLocalize.key()} call
+ * or method reference, a statically imported call, or a {@code LocalizeKey.of(XxxLocalize.ID, "key")} literal.
+ * <p>
+ * References are not resolved, so a file found by a key is only a candidate.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+@ExtensionImpl
+public class LocalizeKeyUsageIndexExtension extends FileBasedIndexExtension<String, Void> {
+    public static final ID<String, Void> INDEX = ID.create("consulo.localize.key.usage.index");
+
+    private static final String LOCALIZE_SUFFIX = "Localize";
+
+    private static final char SEPARATOR = '#';
+
+    /**
+     * @param localizeClassName short name of the localize class
+     * @param usageId           {@link LocalizeUtil#getKeyUsageId} or {@link LocalizeUtil#getMethodUsageId}
+     */
+    @Nonnull
+    public static String getIndexKey(@Nonnull String localizeClassName, @Nonnull String usageId) {
+        return localizeClassName + SEPARATOR + usageId;
+    }
+
+    @Nonnull
+    @Override
+    public ID<String, Void> getName() {
+        return INDEX;
+    }
+
+    @Nonnull
+    @Override
+    public DataIndexer<String, Void, FileContent> getIndexer() {
+        return fileContent -> {
+            if (!StringUtil.contains(fileContent.getContentAsText(), LOCALIZE_SUFFIX)
+                || !(fileContent.getPsiFile() instanceof PsiJavaFile javaFile)) {
+                return Map.of();
+            }
+
+            Map<String, Void> result = new HashMap<>();
+            Map<String, String> staticImports = new HashMap<>();
+            List<String> staticOnDemandImports = new ArrayList<>();
+            PsiImportList importList = javaFile.getImportList();
+            if (importList != null) {
+                for (PsiImportStaticStatement statement : importList.getImportStaticStatements()) {
+                    PsiJavaCodeReferenceElement importReference = statement.getImportReference();
+                    if (importReference instanceof PsiImportStaticReferenceElement memberReference) {
+                        importReference = memberReference.getClassReference();
+                    }
+                    String className = importReference == null ? null : importReference.getReferenceName();
+                    if (className == null || !className.endsWith(LOCALIZE_SUFFIX)) {
+                        continue;
+                    }
+
+                    String memberName = statement.getReferenceName();
+                    if (memberName == null) {
+                        staticOnDemandImports.add(className);
+                    }
+                    else {
+                        staticImports.put(memberName, className);
+                    }
+                }
+            }
+
+            javaFile.accept(new JavaRecursiveElementWalkingVisitor() {
+                @Override
+                public void visitMethodCallExpression(@Nonnull PsiMethodCallExpression expression) {
+                    super.visitMethodCallExpression(expression);
+
+                    PsiReferenceExpression methodExpression = expression.getMethodExpression();
+                    String methodName = methodExpression.getReferenceName();
+                    if (methodName == null) {
+                        return;
+                    }
+
+                    PsiExpression qualifier = methodExpression.getQualifierExpression();
+                    if (qualifier == null) {
+                        String className = staticImports.get(methodName);
+                        if (className != null) {
+                            addMethodUsage(className, methodName);
+                        }
+                        for (String onDemandClassName : staticOnDemandImports) {
+                            addMethodUsage(onDemandClassName, methodName);
+                        }
+                        return;
+                    }
+
+                    String className = getLocalizeClassName(qualifier);
+                    if (className != null) {
+                        addMethodUsage(className, methodName);
+                    }
+                    else if ("of".equals(methodName) && qualifier instanceof PsiReferenceExpression qualifierReference
+                        && "LocalizeKey".equals(qualifierReference.getReferenceName())) {
+                        addLocalizeKeyUsage(expression.getArgumentList().getExpressions());
+                    }
+                }
+
+                @Override
+                public void visitMethodReferenceExpression(@Nonnull PsiMethodReferenceExpression expression) {
+                    super.visitMethodReferenceExpression(expression);
+
+                    String className = getLocalizeClassName(expression.getQualifierExpression());
+                    String methodName = expression.getReferenceName();
+                    if (className != null && methodName != null) {
+                        addMethodUsage(className, methodName);
+                    }
+                }
+
+                private void addLocalizeKeyUsage(PsiExpression[] arguments) {
+                    if (arguments.length >= 2
+                        && arguments[0] instanceof PsiReferenceExpression idReference
+                        && arguments[1] instanceof PsiLiteralExpression keyLiteral
+                        && keyLiteral.getValue() instanceof String key
+                        && !key.isEmpty()) {
+                        String className = getLocalizeClassName(idReference.getQualifierExpression());
+                        if (className != null) {
+                            result.put(getIndexKey(className, LocalizeUtil.getKeyUsageId(key)), null);
+                        }
+                    }
+                }
+
+                private void addMethodUsage(String className, String methodName) {
+                    result.put(getIndexKey(className, LocalizeUtil.getMethodUsageId(methodName)), null);
+                }
+            });
+            return result;
+        };
+    }
+
+    @Nullable
+    private static String getLocalizeClassName(@Nullable PsiExpression qualifier) {
+        if (qualifier instanceof PsiReferenceExpression reference) {
+            String name = reference.getReferenceName();
+            return name != null && name.endsWith(LOCALIZE_SUFFIX) ? name : null;
+        }
+        return null;
+    }
+
+    @Nonnull
+    @Override
+    public KeyDescriptor<String> getKeyDescriptor() {
+        return EnumeratorStringDescriptor.INSTANCE;
+    }
+
+    @Nonnull
+    @Override
+    public DataExternalizer<Void> getValueExternalizer() {
+        return VoidDataExternalizer.INSTANCE;
+    }
+
+    @Override
+    public int getVersion() {
+        return 1;
+    }
+
+    @Nonnull
+    @Override
+    public FileBasedIndex.InputFilter getInputFilter() {
+        return (project, file) -> file.getFileType() == JavaFileType.INSTANCE;
+    }
+
+    @Override
+    public boolean dependsOnFileContent() {
+        return true;
+    }
+}
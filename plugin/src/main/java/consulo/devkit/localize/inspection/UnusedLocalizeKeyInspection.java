@@ -0,0 +1,115 @@
+package consulo.devkit.localize.inspection;
+
+import consulo.annotation.access.RequiredReadAction;
+import consulo.annotation.component.ExtensionImpl;
+import consulo.devkit.localize.DevKitLocalize;
+import consulo.devkit.localize.LocalizeUtil;
+import consulo.devkit.localize.index.LocalizeKeyUsageIndexExtension;
+import consulo.devkit.util.PluginModuleUtil;
+import consulo.language.Language;
+import consulo.language.editor.inspection.LocalInspectionTool;
+import consulo.language.editor.inspection.LocalInspectionToolSession;
+import consulo.language.editor.inspection.ProblemHighlightType;
+import consulo.language.editor.inspection.ProblemsHolder;
+import consulo.language.editor.rawHighlight.HighlightDisplayLevel;
+import consulo.language.psi.PsiElement;
+import consulo.language.psi.PsiElementVisitor;
+import consulo.language.psi.PsiFile;
+import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.language.psi.stub.FileBasedIndex;
+import consulo.localize.LocalizeValue;
+import consulo.util.lang.StringUtil;
+import consulo.virtualFileSystem.VirtualFile;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.jetbrains.yaml.YAMLLanguage;
+import org.jetbrains.yaml.psi.YAMLDocument;
+import org.jetbrains.yaml.psi.YAMLKeyValue;
+import org.jetbrains.yaml.psi.YAMLMapping;
+
+/**
+ * Reports keys of default locale files which are not used by any Java file according to {@link LocalizeKeyUsageIndexExtension}.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+@ExtensionImpl
+public class UnusedLocalizeKeyInspection extends LocalInspectionTool {
+    @Nonnull
+    @Override
+    public LocalizeValue getGroupDisplayName() {
+        return DevKitLocalize.inspectionsGroupName();
+    }
+
+    @Nullable
+    @Override
+    public Language getLanguage() {
+        return YAMLLanguage.INSTANCE;
+    }
+
+    @Override
+    public boolean isEnabledByDefault() {
+        return false;
+    }
+
+    @Nonnull
+    @Override
+    public LocalizeValue getDisplayName() {
+        return DevKitLocalize.inspectionUnusedLocalizeKeyDisplayName();
+    }
+
+    @Nonnull
+    @Override
+    public HighlightDisplayLevel getDefaultLevel() {
+        return HighlightDisplayLevel.WARNING;
+    }
+
+    @Nonnull
+    @Override
+    @RequiredReadAction
+    public PsiElementVisitor buildVisitor(
+        @Nonnull ProblemsHolder holder,
+        boolean isOnTheFly,
+        @Nonnull LocalInspectionToolSession session,
+        @Nonnull Object state
+    ) {
+        PsiFile file = holder.getFile();
+        VirtualFile virtualFile = file.getVirtualFile();
+
+        if (!LocalizeUtil.isDefaultLocalizeFile(virtualFile)
+            || !PluginModuleUtil.isConsuloOrPluginProject(file.getProject(), file.getModule())) {
+            return PsiElementVisitor.EMPTY_VISITOR;
+        }
+
+        String className = StringUtil.getShortName(LocalizeUtil.getLocalizeClassId(virtualFile));
+        GlobalSearchScope scope = GlobalSearchScope.allScope(file.getProject());
+        FileBasedIndex fileBasedIndex = FileBasedIndex.getInstance();
+
+        return new PsiElementVisitor() {
+            @Override
+            @RequiredReadAction
+            public void visitElement(PsiElement element) {
+                if (element instanceof YAMLKeyValue keyValue
+                    && keyValue.getParent() instanceof YAMLMapping topLevelMapping
+                    && topLevelMapping.getParent() instanceof YAMLDocument
+                    && keyValue.getValue() instanceof YAMLMapping valueMapping
+                    && valueMapping.getKeyValueByKey(LocalizeUtil.TEXT_KEY) != null) {
+                    String key = keyValue.getKeyText();
+                    String usageId = LocalizeUtil.getKeyUsageId(key);
+                    if (usageId.isEmpty()) {
+                        return;
+                    }
+
+                    String indexKey = LocalizeKeyUsageIndexExtension.getIndexKey(className, usageId);
+                    if (fileBasedIndex.getContainingFiles(LocalizeKeyUsageIndexExtension.INDEX, indexKey, scope).isEmpty()) {
+                        PsiElement keyElement = keyValue.getKey();
+                        holder.newProblem(DevKitLocalize.inspectionUnusedLocalizeKeyMessage(key))
+                            .range(keyElement != null ? keyElement : keyValue)
+                            .highlightType(ProblemHighlightType.LIKE_UNUSED_SYMBOL)
+                            .create();
+                    }
+                }
+            }
+        };
+    }
+}
@@ -1,17 +1,24 @@
 package consulo.devkit.localize.java;
 
-import com.ibm.icu.text.MessageFormat;
 import com.intellij.java.language.impl.psi.impl.light.LightFieldBuilder;
-import com.intellij.java.language.impl.psi.impl.light.LightMethodBuilder;
 import com.intellij.java.language.impl.psi.impl.light.LightPsiClassBuilder;
 import com.intellij.java.language.psi.*;
+import consulo.annotation.access.RequiredReadAction;
 import consulo.devkit.localize.LocalizeUtil;
+import consulo.devkit.localize.index.LocalizeKeyIndexExtension;
+import consulo.devkit.localize.index.LocalizeKeyInfo;
+import consulo.language.psi.PsiElement;
 import consulo.language.psi.PsiFile;
-import consulo.language.psi.PsiManager;
+import consulo.language.psi.resolve.NameHint;
+import consulo.language.psi.resolve.PsiScopeProcessor;
+import consulo.language.psi.resolve.ResolveState;
 import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.language.psi.stub.FileBasedIndex;
 import consulo.localize.LocalizeValue;
 import consulo.project.Project;
 import consulo.util.lang.StringUtil;
+import consulo.util.lang.ref.SimpleReference;
+import consulo.virtualFileSystem.VirtualFile;
 import jakarta.annotation.Nonnull;
 import jakarta.annotation.Nullable;
 import org.jetbrains.yaml.psi.YAMLDocument;
@@ -19,26 +26,31 @@ import org.jetbrains.yaml.psi.YAMLFile;
 import org.jetbrains.yaml.psi.YAMLKeyValue;
 import org.jetbrains.yaml.psi.YAMLMapping;
 
-import java.text.Format;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Locale;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author VISTALL
  * @since 2025-10-02
  */
 public class LocalizeClassBuilder extends LightPsiClassBuilder {
+    private static final String ID_FIELD = "ID";
+
     private final String myQualifiedName;
 
     @Nonnull
     private final YAMLFile myYamlFile;
 
-    private boolean myInitialized;
+    private final PsiField myIdField;
+
+    /**
+     * Keys grouped by method name, built on first lookup. Method builders are created per requested name.
+     */
+    private volatile Map<String, List<YAMLKeyValue>> myKeysByMethodName;
 
-    private List<PsiMethod> myMethods = List.of();
+    private final Map<String, PsiMethod[]> myMethodsByName = new ConcurrentHashMap<>();
 
-    private PsiField myIdField;
+    private volatile PsiMethod[] myMethods;
 
     public LocalizeClassBuilder(@Nonnull YAMLFile yamlFile,
                                 @Nonnull String qualifiedName) {
@@ -48,7 +60,7 @@ public class LocalizeClassBuilder extends LightPsiClassBuilder {
 
         PsiClassType stringType = PsiType.getJavaLangString(yamlFile.getManager(), yamlFile.getResolveScope());
 
-        LightFieldBuilder idBuilder = new LightFieldBuilder("ID", stringType, yamlFile);
+        LightFieldBuilder idBuilder = new LightFieldBuilder(ID_FIELD, stringType, yamlFile);
         idBuilder.setContainingClass(this);
         idBuilder.setModifiers(PsiModifier.PUBLIC, PsiModifier.STATIC, PsiModifier.FINAL);
 
@@ -61,70 +73,108 @@ public class LocalizeClassBuilder extends LightPsiClassBuilder {
         myQualifiedName = qualifiedName;
     }
 
-    private void buildMethods() {
-        if (myInitialized) {
-            return;
+    @Nonnull
+    private Map<String, List<YAMLKeyValue>> getKeysByMethodName() {
+        Map<String, List<YAMLKeyValue>> keys = myKeysByMethodName;
+        if (keys != null) {
+            return keys;
         }
 
-        myMethods = collectMethods();
+        keys = new LinkedHashMap<>();
+
+        Project project = myYamlFile.getProject();
+
+        for (YAMLDocument document : myYamlFile.getDocuments()) {
+            if (document.getTopLevelValue() instanceof YAMLMapping topLevelMapping) {
+                for (YAMLKeyValue value : topLevelMapping.getKeyValues()) {
+                    if (value.getValue() instanceof YAMLMapping valueMapping
+                        && valueMapping.getKeyValueByKey(LocalizeUtil.TEXT_KEY) != null) {
+                        String methodName = LocalizeUtil.formatMethodName(project, value.getKeyText());
 
-        for (PsiMethod method : myMethods) {
-            if (method instanceof LightMethodBuilder) {
-                ((LightMethodBuilder) method).setContainingClass(this);
+                        keys.computeIfAbsent(methodName, it -> new ArrayList<>(1)).add(value);
+                    }
+                }
             }
         }
 
-        myInitialized = true;
+        myKeysByMethodName = keys;
+        return keys;
     }
 
-    private List<PsiMethod> collectMethods() {
-        List<PsiMethod> methods = new ArrayList<>();
-
-        List<YAMLDocument> documents = myYamlFile.getDocuments();
+    @Nonnull
+    private PsiMethod[] getMethodsByName(@Nonnull String name) {
+        PsiMethod[] methods = myMethodsByName.get(name);
+        if (methods != null) {
+            return methods;
+        }
 
-        PsiManager manager = getManager();
+        List<YAMLKeyValue> keys = getKeysByMethodName().get(name);
+        if (keys == null) {
+            return PsiMethod.EMPTY_ARRAY;
+        }
 
         GlobalSearchScope resolveScope = myYamlFile.getResolveScope();
 
-        Project project = myYamlFile.getProject();
+        PsiClassType type = PsiElementFactory.getInstance(getProject()).createTypeByFQClassName(LocalizeValue.class.getName(), resolveScope);
 
-        PsiClassType type = PsiElementFactory.getInstance(project).createTypeByFQClassName(LocalizeValue.class.getName(), resolveScope);
+        PsiClassType javaLangObject = PsiType.getJavaLangObject(getManager(), resolveScope);
 
-        PsiClassType javaLangObject = PsiType.getJavaLangObject(manager, resolveScope);
+        VirtualFile virtualFile = myYamlFile.getVirtualFile();
+        String localizeClassId = virtualFile == null ? null : LocalizeUtil.getLocalizeClassId(virtualFile);
 
-        for (YAMLDocument document : documents) {
-            if (document.getTopLevelValue() instanceof YAMLMapping topLevelMapping) {
-                for (YAMLKeyValue value : topLevelMapping.getKeyValues()) {
-                    if (value.getValue() instanceof YAMLMapping valueMapping) {
-                        YAMLKeyValue text = valueMapping.getKeyValueByKey("text");
-                        if (text != null) {
-                            String key = value.getKeyText();
-                            String valueText = text.getValueText();
+        methods = new PsiMethod[keys.size()];
+        for (int i = 0; i < methods.length; i++) {
+            YAMLKeyValue value = keys.get(i);
 
-                            String localizeText = StringUtil.notNullize(valueText);
+            YAMLKeyValue text = value.getValue() instanceof YAMLMapping valueMapping
+                ? valueMapping.getKeyValueByKey(LocalizeUtil.TEXT_KEY)
+                : null;
 
-                            MessageFormat format = new MessageFormat(localizeText, Locale.US);
+            String localizeText = text == null ? "" : StringUtil.notNullize(text.getValueText());
 
-                            Format[] formatsByArgumentIndex = format.getFormatsByArgumentIndex();
+            int argumentCount = getArgumentCount(virtualFile, localizeClassId, value.getKeyText(), localizeText);
 
-                            String methodName = LocalizeUtil.formatMethodName(project, key);
+            LocalizeMethodBuilder builder = new LocalizeMethodBuilder(this, value, name, localizeText, type);
 
-                            LocalizeMethodBuilder builder = new LocalizeMethodBuilder(this, value, methodName, localizeText, type);
+            for (int p = 0; p < argumentCount; p++) {
+                builder.addParameter("p" + p, javaLangObject);
+            }
 
-                            if (formatsByArgumentIndex.length > 0) {
-                                for (int i = 0; i < formatsByArgumentIndex.length; i++) {
-                                    builder.addParameter("p" + i, javaLangObject);
-                                }
-                            }
+            builder.setContainingClass(this);
 
-                            methods.add(builder);
-                        }
-                    }
-                }
+            methods[i] = builder;
+        }
+
+        PsiMethod[] prev = myMethodsByName.putIfAbsent(name, methods);
+        return prev != null ? prev : methods;
+    }
+
+    /**
+     * Takes the count of the single key from {@link LocalizeKeyIndexExtension} unless the key is not indexed as is,
+     * e.g. the file is not a default locale file, has keys differing only in case or the index is not up to date.
+     */
+    private int getArgumentCount(@Nullable VirtualFile virtualFile,
+                                 @Nullable String localizeClassId,
+                                 @Nonnull String key,
+                                 @Nonnull String localizeText) {
+        if (virtualFile != null && localizeClassId != null) {
+            SimpleReference<LocalizeKeyInfo> result = SimpleReference.create();
+            FileBasedIndex.getInstance().processValues(
+                LocalizeKeyIndexExtension.INDEX,
+                LocalizeKeyIndexExtension.getIndexKey(localizeClassId, key),
+                virtualFile,
+                (file, info) -> {
+                    result.set(info);
+                    return false;
+                },
+                GlobalSearchScope.fileScope(getProject(), virtualFile)
+            );
+            LocalizeKeyInfo info = result.get();
+            if (info != null && info.key().equals(key) && info.text().equals(localizeText)) {
+                return info.argumentCount();
             }
         }
-        
-        return methods;
+        return LocalizeUtil.getArgumentCount(localizeText);
     }
 
     @Nonnull
@@ -136,9 +186,65 @@ public class LocalizeClassBuilder extends LightPsiClassBuilder {
     @Nonnull
     @Override
     public PsiMethod[] getMethods() {
-        buildMethods();
+        PsiMethod[] methods = myMethods;
+        if (methods != null) {
+            return methods;
+        }
+
+        List<PsiMethod> result = new ArrayList<>();
+        for (String name : getKeysByMethodName().keySet()) {
+            Collections.addAll(result, getMethodsByName(name));
+        }
 
-        return myMethods.toArray(PsiMethod.EMPTY_ARRAY);
+        methods = result.toArray(PsiMethod.EMPTY_ARRAY);
+        myMethods = methods;
+        return methods;
+    }
+
+    @Nonnull
+    @Override
+    public PsiMethod[] findMethodsByName(String name, boolean checkBases) {
+        PsiMethod[] methods = name == null ? PsiMethod.EMPTY_ARRAY : getMethodsByName(name);
+        if (methods.length > 0 || !checkBases) {
+            return methods;
+        }
+        // the default implementation collects getMethods(), i.e. builds methods for all the keys
+        PsiClass superClass = getSuperClass();
+        return superClass == null ? PsiMethod.EMPTY_ARRAY : superClass.findMethodsByName(name, true);
+    }
+
+    @Override
+    @RequiredReadAction
+    public boolean processDeclarations(@Nonnull PsiScopeProcessor processor,
+                                       @Nonnull ResolveState state,
+                                       PsiElement lastParent,
+                                       @Nonnull PsiElement place) {
+        NameHint nameHint = processor.getHint(NameHint.KEY);
+        String name = nameHint == null ? null : nameHint.getName(state);
+        if (name != null) {
+            // resolve of a single member, do not build methods for all the keys
+            PsiMethod[] methods = getMethodsByName(name);
+            for (PsiMethod method : methods) {
+                if (!processor.execute(method, state)) {
+                    return false;
+                }
+            }
+            if (ID_FIELD.equals(name)) {
+                return processor.execute(myIdField, state);
+            }
+            if (methods.length > 0) {
+                return true;
+            }
+            // a miss must not go through the default implementation either, it processes getMethods()
+            PsiClass superClass = getSuperClass();
+            return superClass == null || superClass.processDeclarations(processor, state, lastParent, place);
+        }
+        return super.processDeclarations(processor, state, lastParent, place);
+    }
+
+    @Override
+    public boolean isValid() {
+        return myYamlFile.isValid();
     }
 
     @Override
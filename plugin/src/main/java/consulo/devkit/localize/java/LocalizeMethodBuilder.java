@@ -1,12 +1,22 @@
 package consulo.devkit.localize.java;
 
 import com.intellij.java.language.JavaLanguage;
+import com.intellij.java.language.impl.JavaFileType;
 import com.intellij.java.language.impl.psi.impl.light.LightMethodBuilder;
 import com.intellij.java.language.psi.PsiClass;
 import com.intellij.java.language.psi.PsiModifier;
 import com.intellij.java.language.psi.PsiType;
+import consulo.devkit.localize.LocalizeUtil;
+import consulo.devkit.localize.index.LocalizeKeyUsageIndexExtension;
 import consulo.language.psi.PsiElement;
 import consulo.language.psi.PsiManager;
+import consulo.language.psi.scope.GlobalSearchScope;
+import consulo.language.psi.stub.FileBasedIndex;
+import consulo.project.Project;
+import consulo.virtualFileSystem.VirtualFile;
+import jakarta.annotation.Nonnull;
+
+import java.util.Collection;
 
 /**
  * @author VISTALL
@@ -37,4 +47,29 @@ public class LocalizeMethodBuilder extends LightMethodBuilder {
     public String getLocalizeText() {
         return myLocalizeText;
     }
+
+    /**
+     * Restricts reference search in Java files to the candidate files of {@link LocalizeKeyUsageIndexExtension},
+     * files of other languages are not indexed and stay searched.
+     */
+    @Nonnull
+    @Override
+    public GlobalSearchScope getUseScope() {
+        Project project = getProject();
+        PsiClass containingClass = getContainingClass();
+        String className = containingClass == null ? null : containingClass.getName();
+        if (className == null) {
+            return GlobalSearchScope.allScope(project);
+        }
+
+        GlobalSearchScope allScope = GlobalSearchScope.allScope(project);
+        Collection<VirtualFile> javaFiles = FileBasedIndex.getInstance().getContainingFiles(
+            LocalizeKeyUsageIndexExtension.INDEX,
+            LocalizeKeyUsageIndexExtension.getIndexKey(className, LocalizeUtil.getMethodUsageId(getName())),
+            allScope
+        );
+        GlobalSearchScope otherFiles =
+            allScope.intersectWith(GlobalSearchScope.notScope(GlobalSearchScope.getScopeRestrictedByFileTypes(allScope, JavaFileType.INSTANCE)));
+        return GlobalSearchScope.filesScope(project, javaFiles).uniteWith(otherFiles);
+    }
 }
@@ -0,0 +1,134 @@
+package consulo.devkit.localize;
+
+import com.ibm.icu.text.MessageFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * {@link LocalizeUtil#getArgumentCount} must agree with the {@link MessageFormat} the localize texts are formatted with.
+ *
+ * @author agent
+ * @since 2026-10-18
+ */
+public class LocalizeUtilTest {
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "",
+        "no arguments",
+        "{0}",
+        "{0} and {1}",
+        "{2} only",
+        "{1} before {0}",
+        "{ 1 }",
+        "{0,number}",
+        "{0,NUMBER}",
+        "{0, number, integer}",
+        "{1,date,short} at {0,time}",
+        "{0,number,'{'#}",
+        "{0,foo}",
+        "{0,plural}",
+        "{0 1}",
+    })
+    public void testArguments(String text) {
+        assertArgumentCount(text);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "'{0}'",
+        "'{'{0}",
+        "'{0}' {1}",
+        "'{0} {1}",
+        "It''s {0}",
+        "It's {0}",
+        "'' {0} ''",
+        "I'm '{'{1}'}'",
+        "{0} ends with '",
+    })
+    public void testQuoting(String text) {
+        assertArgumentCount(text);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "{0, plural, one {# file} other {# files}}",
+        "{0, plural, =0 {no files} one {{1} file} other {{1} files}}",
+        "{1, plural, offset:1 =0 {none} other {# and {0}}}",
+        "{0, plural, one {'#' {1}} other {x}}",
+        "{0, plural, =x {none} other {x}}",
+        "{0, plural, one {x} offset:1 other {y}}",
+        "{0, selectordinal, one {#st} two {#nd} few {#rd} other {#th}} {2}",
+        "{0, select, male {he} female {she} other {they}}",
+        "{0, select, male {he}}",
+        "{0, select, other {{1, plural, one {a} other {{2} b}}}}",
+        "{0, choice, 0#no files|1#one file|1<{0,number,integer} files}",
+        "{0,choice,0#'|'|1#x} {1}",
+        "{0,choice,-\u221e<x|0#y}",
+        "{0,choice,x#y}",
+        "{0,choice,}",
+    })
+    public void testNestedArguments(String text) {
+        assertArgumentCount(text);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "{name}",
+        "{0} {name}",
+        "{0, select, other {{name}}}",
+        "{0, plural, other {{_1}}}",
+    })
+    public void testNamedArguments(String text) {
+        assertArgumentCount(text);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "{00}",
+        "{01}",
+        "{0} {007}",
+        "{10}",
+        "{1a}",
+    })
+    public void testLeadingZeros(String text) {
+        assertArgumentCount(text);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+        "{",
+        "{}",
+        "{0",
+        "{0}}",
+        "}{0}",
+        "{0} {",
+        "{0, plural, other {x}",
+        "{0, number, {#}",
+        "{0,choice,0#x",
+        "{0,number,'#}",
+    })
+    public void testUnbalancedBraces(String text) {
+        assertArgumentCount(text);
+    }
+
+    @Test
+    public void testNull() {
+        assertEquals(0, LocalizeUtil.getArgumentCount(null));
+    }
+
+    private static void assertArgumentCount(String text) {
+        assertEquals(getFormatArgumentCount(text), LocalizeUtil.getArgumentCount(text), text);
+    }
+
+    private static int getFormatArgumentCount(String text) {
+        try {
+            return new MessageFormat(text).getFormatsByArgumentIndex().length;
+        }
+        catch (IllegalArgumentException e) {
+            return 0;
+        }
+    }
+}